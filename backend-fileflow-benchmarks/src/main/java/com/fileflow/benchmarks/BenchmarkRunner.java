@@ -0,0 +1,32 @@
+package com.fileflow.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar. Takes the usual JMH command line options and always
+ * adds the GC profiler, so every result reports gc.alloc.rate.norm next to throughput.
+ *
+ * With -Dbenchmarks.large-files=true the storage benchmarks also run on 1 GB and 10 GB
+ * files, unless the command line already sets -p size.
+ */
+public class BenchmarkRunner {
+
+    private static final String[] LARGE_FILE_SIZES = {"1KB", "1MB", "100MB", "1GB", "10GB"};
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+        if (Boolean.getBoolean("benchmarks.large-files") && !commandLine.getParameter("size").hasValue()) {
+            options.param("size", LARGE_FILE_SIZES);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,109 @@
+package com.fileflow.benchmarks;
+
+import com.fileflow.entity.File;
+import com.fileflow.entity.Folder;
+import com.fileflow.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detached entities shaped like production data. A fixed seed keeps runs comparable.
+ */
+public class SyntheticData {
+
+    private static final String[] EXTENSIONS = {".pdf", ".docx", ".png", ".jpg", ".mp4", ".zip", ".txt", ".xlsx"};
+    private static final String[] CONTENT_TYPES = {
+        "application/pdf", "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+        "image/png", "image/jpeg", "video/mp4", "application/zip", "text/plain",
+        "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"
+    };
+
+    private final Random random = new Random(42);
+    private final AtomicLong ids = new AtomicLong();
+    private final LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private final User user;
+
+    public SyntheticData() {
+        user = new User();
+        user.setId(1L);
+        user.setEmail("bench@fileflow.local");
+        user.setFirstName("Bench");
+        user.setLastName("User");
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public File file(Folder folder) {
+        int type = random.nextInt(EXTENSIONS.length);
+        long id = ids.incrementAndGet();
+        File file = new File();
+        file.setId(id);
+        file.setOriginalFileName("document-" + id + EXTENSIONS[type]);
+        file.setFileName(UUID.randomUUID() + EXTENSIONS[type]);
+        file.setFilePath("./uploads/1/" + file.getFileName());
+        file.setFileUuid(UUID.randomUUID().toString());
+        file.setContentType(CONTENT_TYPES[type]);
+        file.setFileSize(1024L + (long) (random.nextDouble() * 50_000_000L));
+        file.setIsFavorite(random.nextInt(10) == 0);
+        file.setCreatedAt(now.minusDays(random.nextInt(365)));
+        file.setUpdatedAt(now);
+        file.setUser(user);
+        file.setFolder(folder);
+        return file;
+    }
+
+    public List<File> files(int count) {
+        List<File> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            files.add(file(null));
+        }
+        return files;
+    }
+
+    /**
+     * A tree of the given depth where every folder has fanOut subfolders and filesPerFolder files.
+     * Returns the folders level by level, root first.
+     */
+    public List<Folder> tree(int depth, int fanOut, int filesPerFolder) {
+        List<Folder> all = new ArrayList<>();
+        List<Folder> level = List.of(folder(null, filesPerFolder));
+        all.addAll(level);
+        for (int d = 1; d < depth; d++) {
+            List<Folder> next = new ArrayList<>();
+            for (Folder parent : level) {
+                for (int i = 0; i < fanOut; i++) {
+                    Folder child = folder(parent, filesPerFolder);
+                    parent.getSubfolders().add(child);
+                    next.add(child);
+                }
+            }
+            all.addAll(next);
+            level = next;
+        }
+        return all;
+    }
+
+    private Folder folder(Folder parent, int filesPerFolder) {
+        long id = ids.incrementAndGet();
+        Folder folder = new Folder();
+        folder.setId(id);
+        folder.setName("folder-" + id);
+        folder.setPath(parent == null ? "/folder-" + id : parent.getPath() + "/folder-" + id);
+        folder.setUser(user);
+        folder.setParent(parent);
+        folder.setColor("#3B82F6");
+        folder.setCreatedAt(now);
+        folder.setUpdatedAt(now);
+        for (int i = 0; i < filesPerFolder; i++) {
+            folder.getFiles().add(file(folder));
+        }
+        return folder;
+    }
+}
@@ -0,0 +1,87 @@
+package com.fileflow.benchmarks.storage;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compressing a stored file to a sibling file with each codec, on compressible
+ * (generated text) and incompressible (random, like media) content. The compressed
+ * size of the last invocation is printed at the end of each trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageCompressionBenchmark {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Param({"./uploads"})
+    private String uploadDir;
+
+    @Param({"1KB", "1MB", "100MB"})
+    private String size;
+
+    @Param({"text", "random"})
+    private String content;
+
+    @Param({"gzip-1", "gzip-6", "lz4", "zstd-1", "zstd-3"})
+    private String codec;
+
+    private StorageFixture fixture;
+    private Path source;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        fixture = new StorageFixture(uploadDir);
+        source = fixture.createFile("source", StorageFixture.parseSize(size), "text".equals(content));
+        target = fixture.resolve("target");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("%n# %s on %s %s: %d -> %d bytes%n", codec, size, content, Files.size(source), Files.size(target));
+        fixture.close();
+    }
+
+    @Benchmark
+    public Path compress() throws IOException {
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = open(Files.newOutputStream(target))) {
+            in.transferTo(out);
+        }
+        return target;
+    }
+
+    private OutputStream open(OutputStream out) throws IOException {
+        return switch (codec) {
+            case "gzip-1" -> new LeveledGzipOutputStream(out, Deflater.BEST_SPEED);
+            case "gzip-6" -> new LeveledGzipOutputStream(out, Deflater.DEFAULT_COMPRESSION);
+            case "lz4" -> new LZ4FrameOutputStream(out);
+            case "zstd-1" -> new ZstdOutputStream(out, 1);
+            case "zstd-3" -> new ZstdOutputStream(out, 3);
+            default -> throw new IllegalArgumentException("Unknown codec " + codec);
+        };
+    }
+
+    private static class LeveledGzipOutputStream extends GZIPOutputStream {
+
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.fileflow.benchmarks.storage;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duplicating a stored file inside the upload directory:
+ * files-copy (Files.copy, what the folder copy uses), channel-transfer
+ * (FileChannel.transferTo, sendfile/copy_file_range where the OS has it), stream
+ * (InputStream.transferTo with a heap buffer, like the upload path), hard-link
+ * (no data copied, same filesystem only) and move (atomic rename, moved back after).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageCopyBenchmark {
+
+    @Param({"./uploads"})
+    private String uploadDir;
+
+    @Param({"1KB", "1MB", "100MB"})
+    private String size;
+
+    @Param({"files-copy", "channel-transfer", "stream", "hard-link", "move"})
+    private String strategy;
+
+    private StorageFixture fixture;
+    private Path source;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        fixture = new StorageFixture(uploadDir);
+        source = fixture.createFile("source", StorageFixture.parseSize(size), false);
+        target = fixture.resolve("target");
+    }
+
+    @TearDown(Level.Invocation)
+    public void resetTarget() throws IOException {
+        if ("move".equals(strategy)) {
+            Files.move(target, source, StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            fixture.deleteIfExists(target);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Path copy() throws IOException {
+        switch (strategy) {
+            case "files-copy" -> Files.copy(source, target);
+            case "channel-transfer" -> channelTransfer();
+            case "stream" -> {
+                try (InputStream in = Files.newInputStream(source);
+                     OutputStream out = Files.newOutputStream(target, StandardOpenOption.CREATE_NEW)) {
+                    in.transferTo(out);
+                }
+            }
+            case "hard-link" -> Files.createLink(target, source);
+            case "move" -> Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            default -> throw new IllegalArgumentException("Unknown strategy " + strategy);
+        }
+        return target;
+    }
+
+    private void channelTransfer() throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long length = in.size();
+            while (position < length) {
+                position += in.transferTo(position, length - position, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.fileflow.benchmarks.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Scratch directory and source files for the storage benchmarks.
+ *
+ * The directory is created inside the upload directory under test, so copies, links
+ * and renames stay on the filesystem FileService writes to, and is removed afterwards.
+ */
+public class StorageFixture {
+
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final String[] WORDS = {
+        "invoice", "report", "quarterly", "fileflow", "folder", "shared", "upload", "download",
+        "total", "customer", "2024", "draft", "final", "review", "approved", "page"
+    };
+
+    private final Path directory;
+
+    public StorageFixture(String uploadDir) throws IOException {
+        Path root = Path.of(uploadDir).toAbsolutePath();
+        Files.createDirectories(root);
+        this.directory = Files.createTempDirectory(root, ".storage-bench-");
+        FileStore store = Files.getFileStore(directory);
+        System.out.printf("%n# Storage benchmark directory %s on %s (%s)%n", directory, store.name(), store.type());
+    }
+
+    public Path resolve(String name) {
+        return directory.resolve(name);
+    }
+
+    /**
+     * A file of the given size, either random bytes (incompressible, like media) or
+     * generated text (compressible, like documents)
+     */
+    public Path createFile(String name, long size, boolean compressible) throws IOException {
+        Path path = directory.resolve(name);
+        Random random = new Random(size);
+        byte[] chunk = new byte[(int) Math.min(CHUNK_SIZE, Math.max(size, 1))];
+        try (OutputStream out = Files.newOutputStream(path)) {
+            long remaining = size;
+            while (remaining > 0) {
+                if (compressible) {
+                    fillText(chunk, random);
+                } else {
+                    random.nextBytes(chunk);
+                }
+                int length = (int) Math.min(chunk.length, remaining);
+                out.write(chunk, 0, length);
+                remaining -= length;
+            }
+        }
+        return path;
+    }
+
+    public void deleteIfExists(Path path) throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    public void close() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * 1KB, 64MB, 10GB (binary units) or a plain byte count
+     */
+    public static long parseSize(String size) {
+        String value = size.trim().toUpperCase(Locale.ROOT);
+        long multiplier = 1;
+        if (value.endsWith("KB")) {
+            multiplier = 1024L;
+        } else if (value.endsWith("MB")) {
+            multiplier = 1024L * 1024;
+        } else if (value.endsWith("GB")) {
+            multiplier = 1024L * 1024 * 1024;
+        }
+        String digits = multiplier == 1 ? value : value.substring(0, value.length() - 2);
+        return Long.parseLong(digits.trim()) * multiplier;
+    }
+
+    private static void fillText(byte[] chunk, Random random) {
+        int position = 0;
+        while (position < chunk.length) {
+            byte[] word = (WORDS[random.nextInt(WORDS.length)] + (random.nextInt(8) == 0 ? "\n" : " "))
+                .getBytes(StandardCharsets.US_ASCII);
+            int length = Math.min(word.length, chunk.length - position);
+            System.arraycopy(word, 0, chunk, position, length);
+            position += length;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.fileflow.benchmarks.storage;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of making a freshly written file durable: none (left to the page cache, what
+ * uploads do today), force-data (fdatasync) and force-metadata (fsync).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageFsyncBenchmark {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    @Param({"./uploads"})
+    private String uploadDir;
+
+    @Param({"4KB", "1MB", "64MB"})
+    private String size;
+
+    @Param({"none", "force-data", "force-metadata"})
+    private String mode;
+
+    private StorageFixture fixture;
+    private ByteBuffer data;
+    private long length;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        fixture = new StorageFixture(uploadDir);
+        // one buffer written over and over, so sizes of 2GB and more work too
+        length = StorageFixture.parseSize(size);
+        byte[] bytes = new byte[(int) Math.min(BUFFER_SIZE, Math.max(length, 1))];
+        new Random(42).nextBytes(bytes);
+        data = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+        target = fixture.resolve("target");
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteTarget() throws IOException {
+        fixture.deleteIfExists(target);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Path writeAndSync() throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long remaining = length;
+            while (remaining > 0) {
+                data.clear().limit((int) Math.min(data.capacity(), remaining));
+                while (data.hasRemaining()) {
+                    remaining -= channel.write(data);
+                }
+            }
+            switch (mode) {
+                case "force-data" -> channel.force(false);
+                case "force-metadata" -> channel.force(true);
+                case "none" -> { }
+                default -> throw new IllegalArgumentException("Unknown mode " + mode);
+            }
+        }
+        return target;
+    }
+}
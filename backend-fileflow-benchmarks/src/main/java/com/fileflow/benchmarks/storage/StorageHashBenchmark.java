@@ -0,0 +1,76 @@
+package com.fileflow.benchmarks.storage;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Streamed hashing of a stored file, read through a buffer of bufferKb the way a
+ * checksum or dedup key would be computed on upload/download.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageHashBenchmark {
+
+    @Param({"./uploads"})
+    private String uploadDir;
+
+    @Param({"1KB", "1MB", "100MB"})
+    private String size;
+
+    @Param({"MD5", "SHA-1", "SHA-256", "CRC32C"})
+    private String algorithm;
+
+    @Param({"8", "64"})
+    private int bufferKb;
+
+    private StorageFixture fixture;
+    private Path source;
+    private byte[] buffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        fixture = new StorageFixture(uploadDir);
+        source = fixture.createFile("source", StorageFixture.parseSize(size), false);
+        buffer = new byte[bufferKb * 1024];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Object hash() throws IOException, NoSuchAlgorithmException {
+        if ("CRC32C".equals(algorithm)) {
+            CRC32C crc = new CRC32C();
+            try (InputStream in = Files.newInputStream(source)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                }
+            }
+            return crc.getValue();
+        }
+
+        MessageDigest digest = MessageDigest.getInstance(algorithm);
+        try (InputStream in = Files.newInputStream(source)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+}
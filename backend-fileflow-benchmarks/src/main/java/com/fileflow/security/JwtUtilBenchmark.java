@@ -0,0 +1,62 @@
+package com.fileflow.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtil parse and validate, the per-request cost paid by JwtAuthenticationFilter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+    private UserDetails userDetails;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        jwtUtil = new JwtUtil();
+        // Same values as application.yml, normally injected with @Value
+        setField("secret", "mySecretKey123456789012345678901234567890");
+        setField("expiration", 86_400_000L);
+
+        token = jwtUtil.generateToken("bench@fileflow.local");
+        userDetails = new User("bench@fileflow.local", "", List.of());
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Boolean validateTokenForUser() {
+        return jwtUtil.validateToken(token, userDetails);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("bench@fileflow.local");
+    }
+
+    private void setField(String name, Object value) throws ReflectiveOperationException {
+        Field field = JwtUtil.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(jwtUtil, value);
+    }
+}
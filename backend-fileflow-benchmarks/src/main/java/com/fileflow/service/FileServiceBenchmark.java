@@ -0,0 +1,55 @@
+package com.fileflow.service;
+
+import com.fileflow.benchmarks.SyntheticData;
+import com.fileflow.dto.FileDTO;
+import com.fileflow.entity.File;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FileService.convertToDTO over listing-sized batches, and copy name generation.
+ * Lives in com.fileflow.service to reach the package-private helpers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileServiceBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int fileCount;
+
+    private FileService fileService;
+    private List<File> files;
+
+    @Setup
+    public void setup() {
+        // convertToDTO and generateUniqueFileName touch none of the collaborators
+        fileService = new FileService(null, null, null, null, null, null, null);
+        files = new SyntheticData().files(fileCount);
+    }
+
+    @Benchmark
+    public void convertToDTO(Blackhole blackhole) {
+        for (File file : files) {
+            blackhole.consume(fileService.convertToDTO(file));
+        }
+    }
+
+    @Benchmark
+    public List<FileDTO> convertListing() {
+        return files.stream().map(fileService::convertToDTO).toList();
+    }
+
+    @Benchmark
+    public void generateUniqueFileName(Blackhole blackhole) {
+        for (File file : files) {
+            blackhole.consume(fileService.generateUniqueFileName(file.getOriginalFileName()));
+        }
+    }
+}
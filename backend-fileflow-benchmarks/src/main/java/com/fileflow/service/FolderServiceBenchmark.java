@@ -0,0 +1,78 @@
+package com.fileflow.service;
+
+import com.fileflow.benchmarks.SyntheticData;
+import com.fileflow.entity.Folder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FolderService.convertToDTO over synthetic trees. getTotalSize walks the whole subtree
+ * and the breadcrumb walks up to the root, so depth and fan-out both matter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FolderServiceBenchmark {
+
+    @Param({"3", "6"})
+    private int depth;
+
+    @Param({"4"})
+    private int fanOut;
+
+    @Param({"10"})
+    private int filesPerFolder;
+
+    private FolderService folderService;
+    private Folder root;
+    private Folder deepest;
+    private List<Folder> tree;
+
+    private final long[] sizes = {0L, 512L, 4_096L, 1_500_000L, 3_221_225_472L, 1_099_511_627_776L};
+
+    @Setup
+    public void setup() {
+        // The DTO and formatting helpers touch none of the collaborators
+        folderService = new FolderService(null, null, null, null, null, null, null);
+        tree = new SyntheticData().tree(depth, fanOut, filesPerFolder);
+        root = tree.get(0);
+        deepest = tree.get(tree.size() - 1);
+    }
+
+    @Benchmark
+    public Object convertRootWithChildren() {
+        return folderService.convertToDTO(root, true);
+    }
+
+    @Benchmark
+    public Object convertDeepestWithChildren() {
+        return folderService.convertToDTO(deepest, true);
+    }
+
+    @Benchmark
+    public void convertWholeTree(Blackhole blackhole) {
+        for (Folder folder : tree) {
+            blackhole.consume(folderService.convertToDTO(folder, false));
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void formatFileSize(Blackhole blackhole) {
+        for (long size : sizes) {
+            blackhole.consume(folderService.formatFileSize(size));
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String generateUniqueFileName() {
+        return folderService.generateUniqueFileName("quarterly-report.final.pdf");
+    }
+}
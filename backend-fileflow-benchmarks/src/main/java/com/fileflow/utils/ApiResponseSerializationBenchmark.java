@@ -0,0 +1,55 @@
+package com.fileflow.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fileflow.benchmarks.SyntheticData;
+import com.fileflow.dto.FileDTO;
+import com.fileflow.service.FileService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the listing response, ApiResponse&lt;List&lt;FileDTO&gt;&gt;.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int fileCount;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<List<FileDTO>> response;
+
+    @Setup
+    public void setup() {
+        // Configured like the ObjectMapper Spring Boot builds
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        FileService fileService = new FileService(null, null, null, null, null, null, null);
+        List<FileDTO> files = new SyntheticData().files(fileCount).stream()
+                .map(fileService::convertToDTO)
+                .toList();
+        response = ApiResponse.success("Files retrieved", files);
+    }
+
+    @Benchmark
+    public byte[] serializeToBytes() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public String serializeToString() throws Exception {
+        return objectMapper.writeValueAsString(response);
+    }
+}
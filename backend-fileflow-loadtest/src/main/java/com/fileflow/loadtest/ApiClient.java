@@ -0,0 +1,119 @@
+package com.fileflow.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Thin HTTP client for the FileFlow REST API, one shared HttpClient for all virtual users.
+ */
+public class ApiClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+
+    public ApiClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+
+    public static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    public Result get(String path, String token) throws IOException, InterruptedException {
+        return send(request(path, token).GET().build());
+    }
+
+    /**
+     * GET that reads and discards the body, for downloads
+     */
+    public Result download(String path, String token) throws IOException, InterruptedException {
+        HttpResponse<Void> response = httpClient.send(request(path, token).GET().build(), HttpResponse.BodyHandlers.discarding());
+        return new Result(response.statusCode(), null);
+    }
+
+    public Result postJson(String path, String token, Object body) throws IOException, InterruptedException {
+        return send(request(path, token)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+            .build());
+    }
+
+    public Result post(String path, String token) throws IOException, InterruptedException {
+        return send(request(path, token).POST(HttpRequest.BodyPublishers.noBody()).build());
+    }
+
+    public Result upload(String token, String fileName, byte[] content, Long folderId) throws IOException, InterruptedException {
+        String boundary = "loadtest-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 512);
+        body.writeBytes(("--" + boundary + "\r\n"
+            + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+            + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        String path = "/api/files/upload" + (folderId != null ? "?folderId=" + folderId : "");
+        return send(request(path, token)
+            .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+            .build());
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Authorization", "Bearer " + token);
+    }
+
+    private Result send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        return new Result(response.statusCode(), response.body());
+    }
+
+    public class Result {
+
+        private final int status;
+        private final byte[] body;
+
+        Result(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public boolean isSuccess() {
+            return status >= 200 && status < 300;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * The data.id field of an ApiResponse body, or null
+         */
+        public Long dataId() throws IOException {
+            if (body == null || body.length == 0) {
+                return null;
+            }
+            JsonNode id = objectMapper.readTree(body).path("data").path("id");
+            return id.isNumber() ? id.asLong() : null;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.fileflow.loadtest;
+
+import com.fileflow.entity.User;
+import com.fileflow.repository.UserRepository;
+import com.fileflow.security.JwtUtil;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Creates the users directly through the repositories, then their folders and files
+ * through the API so the files really exist in the upload directory.
+ */
+public class DataSeeder {
+
+    private static final long MAX_STORAGE = 100L * 1024 * 1024 * 1024;
+    private static final String[] EXTENSIONS = {".txt", ".pdf", ".png", ".docx"};
+
+    private final ApplicationContext context;
+    private final ApiClient client;
+    private final LoadTestOptions options;
+
+    public DataSeeder(ApplicationContext context, ApiClient client, LoadTestOptions options) {
+        this.context = context;
+        this.client = client;
+        this.options = options;
+    }
+
+    public List<SeededUser> seed() throws Exception {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        PasswordEncoder passwordEncoder = context.getBean(PasswordEncoder.class);
+        JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+
+        String password = passwordEncoder.encode("loadtest");
+        List<SeededUser> users = new ArrayList<>();
+        for (int i = 0; i < options.users; i++) {
+            User user = new User();
+            user.setEmail("loadtest-" + i + "@fileflow.local");
+            user.setFirstName("Load");
+            user.setLastName("Test " + i);
+            user.setPassword(password);
+            user.setMaxStorage(MAX_STORAGE);
+            user = userRepository.save(user);
+            users.add(new SeededUser(user.getId(), user.getEmail(), jwtUtil.generateToken(user.getEmail())));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(options.users, 16));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++) {
+                SeededUser user = users.get(i);
+                Random random = new Random(options.seed + i);
+                futures.add(executor.submit(() -> {
+                    seedContent(user, random);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return users;
+    }
+
+    private void seedContent(SeededUser user, Random random) throws Exception {
+        for (int i = 0; i < options.foldersPerUser; i++) {
+            ApiClient.Result result = client.postJson("/api/folders", user.token, Map.of("name", "folder-" + i));
+            Long folderId = result.dataId();
+            if (folderId == null) {
+                throw new IllegalStateException("Could not create folder for " + user.email + ": HTTP " + result.getStatus());
+            }
+            user.folderIds.add(folderId);
+        }
+
+        byte[] content = new byte[options.uploadSizeKb * 1024];
+        for (int i = 0; i < options.filesPerUser; i++) {
+            random.nextBytes(content);
+            // Roughly half the files go in folders so folder copies carry content
+            Long folderId = !user.folderIds.isEmpty() && random.nextBoolean()
+                ? user.folderIds.get(random.nextInt(user.folderIds.size()))
+                : null;
+            String name = "file-" + i + EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            ApiClient.Result result = client.upload(user.token, name, content, folderId);
+            Long fileId = result.dataId();
+            if (fileId == null) {
+                throw new IllegalStateException("Could not upload file for " + user.email + ": HTTP " + result.getStatus());
+            }
+            user.fileIds.add(fileId);
+        }
+    }
+}
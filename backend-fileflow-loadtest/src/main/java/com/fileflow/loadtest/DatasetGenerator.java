@@ -0,0 +1,479 @@
+package com.fileflow.loadtest;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk-populates users, folders, file, file_share and folder_shares straight through
+ * JDBC, to reproduce large tenants (a million files, folder trees 20 levels deep,
+ * thousands of shares) in minutes rather than the hours the API would take.
+ *
+ * Rows are appended after the current maximum ids with explicit ids and batched
+ * inserts, then the identity sequences are moved past them. The schema must exist:
+ * start the backend once against the database first. With --sparse-files=true each
+ * file also gets a sparse file of the right size under --upload-dir/{userId}/, so
+ * downloads and copies work without using the disk space.
+ *
+ * Example: mvn compile exec:java -Dexec.mainClass=com.fileflow.loadtest.DatasetGenerator
+ *     -Dexec.args="--users=5 --files=1000000 --tenant-skew=2 --upload-dir=../backend-fileflow/uploads"
+ */
+public class DatasetGenerator {
+
+    private static final long MAX_STORAGE = 10L * 1024 * 1024 * 1024 * 1024;
+    private static final String[] NAME_STEMS = {"report", "invoice", "photo", "scan", "notes", "backup", "draft", "export"};
+    private static final String[] FOLDER_COLORS = {"#3b82f6", "#10b981", "#f59e0b", "#ef4444", "#8b5cf6"};
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+        "pdf", "application/pdf",
+        "jpg", "image/jpeg",
+        "png", "image/png",
+        "docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+        "xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+        "txt", "text/plain",
+        "mp4", "video/mp4",
+        "zip", "application/zip"
+    );
+
+    private final DatasetOptions options;
+    private final Connection connection;
+    private final Random random;
+    private final LocalDateTime now = LocalDateTime.now();
+
+    private final long[] userIds;
+    private final long[] folderStart;
+    private final int[] folderCount;
+    private final long[] fileStart;
+    private final long[] fileCount;
+    private final long[] storageUsed;
+
+    private final ExecutorService ioExecutor;
+    private final AtomicLong sparseFilesWritten = new AtomicLong();
+    private final AtomicLong sparseFileErrors = new AtomicLong();
+
+    DatasetGenerator(DatasetOptions options, Connection connection) {
+        this.options = options;
+        this.connection = connection;
+        this.random = new Random(options.seed);
+        this.userIds = new long[options.users];
+        this.folderStart = new long[options.users];
+        this.folderCount = new int[options.users];
+        this.fileStart = new long[options.users];
+        this.fileCount = new long[options.users];
+        this.storageUsed = new long[options.users];
+        this.ioExecutor = options.sparseFiles ? Executors.newFixedThreadPool(options.ioThreads) : null;
+    }
+
+    public static void main(String[] args) throws Exception {
+        DatasetOptions options = DatasetOptions.parse(args);
+        try (Connection connection = DriverManager.getConnection(jdbcUrl(options), options.dbUser, options.dbPassword)) {
+            connection.setAutoCommit(false);
+            new DatasetGenerator(options, connection).generate();
+        }
+    }
+
+    void generate() throws Exception {
+        long started = System.nanoTime();
+        splitBetweenUsers();
+
+        step("users", this::insertUsers);
+        step("folders", this::insertFolders);
+        step("files", this::insertFiles);
+        step("file shares", this::insertFileShares);
+        step("folder shares", this::insertFolderShares);
+        step("storage usage", this::updateStorageUsed);
+        step("identity sequences", this::resetSequences);
+
+        if (ioExecutor != null) {
+            System.out.println("Waiting for sparse files...");
+            ioExecutor.shutdown();
+            ioExecutor.awaitTermination(1, TimeUnit.DAYS);
+            System.out.printf("%d sparse files under %s, %d errors%n",
+                sparseFilesWritten.get(), options.uploadDir.toAbsolutePath(), sparseFileErrors.get());
+        }
+        System.out.printf("Done in %ds%n", (System.nanoTime() - started) / 1_000_000_000);
+    }
+
+    /**
+     * Files and folders per user follow a Zipf law, so the first users are the large tenants
+     */
+    private void splitBetweenUsers() {
+        double[] weights = new double[options.users];
+        double total = 0;
+        for (int u = 0; u < options.users; u++) {
+            weights[u] = 1.0 / Math.pow(u + 1, options.tenantSkew);
+            total += weights[u];
+        }
+        long filesLeft = options.files;
+        int foldersLeft = options.folders;
+        for (int u = 0; u < options.users; u++) {
+            boolean last = u == options.users - 1;
+            fileCount[u] = last ? filesLeft : Math.min(filesLeft, Math.round(options.files * weights[u] / total));
+            folderCount[u] = last ? foldersLeft : Math.min(foldersLeft, (int) Math.round(options.folders * weights[u] / total));
+            filesLeft -= fileCount[u];
+            foldersLeft -= folderCount[u];
+        }
+    }
+
+    private void insertUsers() throws SQLException {
+        long nextId = maxId("users") + 1;
+        String password = new BCryptPasswordEncoder().encode("dataset");
+        String sql = "INSERT INTO users (id, first_name, last_name, email, password, storage_used, max_storage, created_at, updated_at)"
+            + " VALUES (?, ?, ?, ?, ?, 0, ?, ?, ?)";
+        try (Batch batch = new Batch(sql)) {
+            for (int u = 0; u < options.users; u++) {
+                long id = nextId++;
+                userIds[u] = id;
+                Timestamp createdAt = randomTimestamp();
+                batch.add(id, "Dataset", "Tenant " + id, "tenant-" + id + "@dataset.fileflow.local", password,
+                    MAX_STORAGE, createdAt, createdAt);
+            }
+        }
+        System.out.printf("  user ids %d..%d, password \"dataset\"%n", userIds[0], userIds[options.users - 1]);
+    }
+
+    /**
+     * One chain of max-depth folders per user, then folders at a depth drawn from the
+     * depth-decay distribution under a random parent that has room for another child.
+     */
+    private void insertFolders() throws SQLException {
+        long nextId = maxId("folders") + 1;
+        double[] depthCdf = depthCdf();
+        String sql = "INSERT INTO folders (id, name, path, user_id, parent_id, is_favorite, color, description, created_at, updated_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Batch batch = new Batch(sql)) {
+            for (int u = 0; u < options.users; u++) {
+                int count = folderCount[u];
+                folderStart[u] = nextId;
+                String[] paths = new String[count];
+                int[] children = new int[count];
+                int[] depths = new int[count];
+                List<List<Integer>> byDepth = new ArrayList<>();
+                for (int d = 0; d <= options.maxDepth; d++) {
+                    byDepth.add(new ArrayList<>());
+                }
+
+                for (int i = 0; i < count; i++) {
+                    int parent = i < options.maxDepth ? i - 1 : pickParent(byDepth, children, sampleDepth(depthCdf));
+                    int depth = parent < 0 ? 1 : depths[parent] + 1;
+                    String name = "folder-" + (i + 1);
+                    paths[i] = (parent < 0 ? "" : paths[parent]) + "/" + name;
+                    if (parent >= 0) {
+                        children[parent]++;
+                    }
+                    depths[i] = depth;
+                    byDepth.get(depth).add(i);
+
+                    Timestamp createdAt = randomTimestamp();
+                    batch.add(nextId++, name, paths[i], userIds[u], parent < 0 ? null : folderStart[u] + parent,
+                        random.nextInt(50) == 0, random.nextInt(4) == 0 ? FOLDER_COLORS[random.nextInt(FOLDER_COLORS.length)] : null,
+                        null, createdAt, createdAt);
+                }
+            }
+        }
+        System.out.printf("  %d folders, max depth %d, max fan-out %d%n", options.folders, options.maxDepth, options.maxFanOut);
+    }
+
+    private void insertFiles() throws SQLException, IOException {
+        long nextId = maxId("file") + 1;
+        double[] typeCdf = weightsCdf(options.types);
+        String[] extensions = options.types.keySet().toArray(new String[0]);
+        long maxSize = options.maxSizeMb * 1024 * 1024;
+        String sql = "INSERT INTO file (id, file_name, original_file_name, file_path, content_type, is_shared, file_size,"
+            + " file_uuid, is_favorite, created_at, updated_at, original_file_id, user_id, folder_id)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Batch batch = new Batch(sql)) {
+            for (int u = 0; u < options.users; u++) {
+                fileStart[u] = nextId;
+                Path userDir = options.uploadDir.resolve(String.valueOf(userIds[u]));
+                if (options.sparseFiles) {
+                    Files.createDirectories(userDir);
+                }
+
+                for (long i = 0; i < fileCount[u]; i++) {
+                    String extension = extensions[sample(typeCdf)];
+                    String fileUuid = new UUID(random.nextLong(), random.nextLong()).toString();
+                    String fileName = fileUuid + "." + extension;
+                    Path filePath = userDir.resolve(fileName);
+                    long size = Math.min(maxSize, Math.round(options.sizeMedianKb * 1024 * Math.exp(options.sizeSigma * random.nextGaussian())));
+                    Long folderId = folderCount[u] == 0 || random.nextDouble() < options.rootFileRatio
+                        ? null : folderStart[u] + random.nextInt(folderCount[u]);
+                    storageUsed[u] += size;
+
+                    Timestamp createdAt = randomTimestamp();
+                    batch.add(nextId++, fileName, NAME_STEMS[random.nextInt(NAME_STEMS.length)] + "-" + (i + 1) + "." + extension,
+                        filePath.toString(), CONTENT_TYPES.getOrDefault(extension, "application/octet-stream"), false, size,
+                        fileUuid, random.nextInt(50) == 0, createdAt, createdAt, null, userIds[u], folderId);
+
+                    if (options.sparseFiles) {
+                        ioExecutor.submit(() -> writeSparseFile(filePath, size));
+                    }
+                }
+            }
+        }
+        System.out.printf("  %d files, median %d KB, types %s%n", options.files, options.sizeMedianKb, options.types);
+    }
+
+    private void insertFileShares() throws SQLException {
+        List<Integer> owners = usersWith(fileCount);
+        if (owners.isEmpty() || options.users < 2) {
+            System.out.println("  skipped, needs at least two users and some files");
+            return;
+        }
+        long nextId = maxId("file_share") + 1;
+        Set<String> seen = new HashSet<>();
+        String sql = "INSERT INTO file_share (id, response, file_id, target_id, share_token, share_type, password_hash,"
+            + " allow_download, expires_at, access_count, is_active, created_at, updated_at)"
+            + " VALUES (?, ?, ?, ?, NULL, 'direct', NULL, TRUE, NULL, 0, TRUE, ?, ?)";
+        int created = 0;
+        try (Batch batch = new Batch(sql)) {
+            for (int attempt = 0; created < options.fileShares && attempt < options.fileShares * 10; attempt++) {
+                int owner = owners.get(random.nextInt(owners.size()));
+                long fileId = fileStart[owner] + (long) (random.nextDouble() * fileCount[owner]);
+                long targetId = userIds[otherUser(owner)];
+                if (!seen.add(fileId + ":" + targetId)) {
+                    continue;
+                }
+                Timestamp createdAt = randomTimestamp();
+                batch.add(nextId++, random.nextDouble() < options.acceptedRatio, fileId, targetId, createdAt, createdAt);
+                created++;
+            }
+        }
+        System.out.printf("  %d file shares%n", created);
+    }
+
+    private void insertFolderShares() throws SQLException {
+        List<Integer> owners = new ArrayList<>();
+        for (int u = 0; u < options.users; u++) {
+            if (folderCount[u] > 0) owners.add(u);
+        }
+        if (owners.isEmpty() || options.users < 2) {
+            System.out.println("  skipped, needs at least two users and some folders");
+            return;
+        }
+        long nextId = maxId("folder_shares") + 1;
+        Set<String> seen = new HashSet<>();
+        String sql = "INSERT INTO folder_shares (id, folder_id, owner_id, target_user_id, permissions, message, shared_at,"
+            + " expires_at, status, password_hash, requires_password, requires_approval, responded_at)"
+            + " VALUES (?, ?, ?, ?, 'read', NULL, ?, NULL, ?, NULL, FALSE, TRUE, ?)";
+        int created = 0;
+        try (Batch batch = new Batch(sql)) {
+            for (int attempt = 0; created < options.folderShares && attempt < options.folderShares * 10; attempt++) {
+                int owner = owners.get(random.nextInt(owners.size()));
+                long folderId = folderStart[owner] + random.nextInt(folderCount[owner]);
+                long targetId = userIds[otherUser(owner)];
+                if (!seen.add(folderId + ":" + targetId)) {
+                    continue;
+                }
+                boolean accepted = random.nextDouble() < options.acceptedRatio;
+                Timestamp sharedAt = randomTimestamp();
+                batch.add(nextId++, folderId, userIds[owner], targetId, sharedAt, accepted ? "accepted" : "pending",
+                    accepted ? sharedAt : null);
+                created++;
+            }
+        }
+        System.out.printf("  %d folder shares%n", created);
+    }
+
+    private void updateStorageUsed() throws SQLException {
+        try (Batch batch = new Batch("UPDATE users SET storage_used = ? WHERE id = ?")) {
+            for (int u = 0; u < options.users; u++) {
+                batch.add(storageUsed[u], userIds[u]);
+            }
+        }
+    }
+
+    /**
+     * Rows were inserted with explicit ids, so the identity columns must start after them
+     */
+    private void resetSequences() throws SQLException {
+        boolean postgres = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("postgres");
+        try (Statement statement = connection.createStatement()) {
+            for (String table : List.of("users", "folders", "file", "file_share", "folder_shares")) {
+                long next = maxId(table) + 1;
+                if (postgres) {
+                    statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), " + next + ", false)");
+                } else {
+                    statement.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+                }
+            }
+        }
+        connection.commit();
+    }
+
+    private void writeSparseFile(Path path, long size) {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(size);
+            sparseFilesWritten.incrementAndGet();
+        } catch (IOException e) {
+            if (sparseFileErrors.getAndIncrement() == 0) {
+                System.err.println("Could not write " + path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private int pickParent(List<List<Integer>> byDepth, int[] children, int depth) {
+        if (depth <= 1) {
+            return -1;
+        }
+        List<Integer> candidates = byDepth.get(depth - 1);
+        for (int attempt = 0; attempt < 8 && !candidates.isEmpty(); attempt++) {
+            int candidate = candidates.get(random.nextInt(candidates.size()));
+            if (children[candidate] < options.maxFanOut) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    private double[] depthCdf() {
+        double[] cdf = new double[options.maxDepth];
+        double total = 0;
+        for (int d = 0; d < options.maxDepth; d++) {
+            total += Math.pow(options.depthDecay, d);
+            cdf[d] = total;
+        }
+        for (int d = 0; d < cdf.length; d++) {
+            cdf[d] /= total;
+        }
+        return cdf;
+    }
+
+    private int sampleDepth(double[] depthCdf) {
+        return sample(depthCdf) + 1;
+    }
+
+    private static double[] weightsCdf(Map<String, Integer> weights) {
+        double[] cdf = new double[weights.size()];
+        double total = 0;
+        int i = 0;
+        for (int weight : weights.values()) {
+            total += weight;
+            cdf[i++] = total;
+        }
+        for (i = 0; i < cdf.length; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    private int sample(double[] cdf) {
+        double value = random.nextDouble();
+        for (int i = 0; i < cdf.length; i++) {
+            if (value < cdf[i]) {
+                return i;
+            }
+        }
+        return cdf.length - 1;
+    }
+
+    private List<Integer> usersWith(long[] counts) {
+        List<Integer> users = new ArrayList<>();
+        for (int u = 0; u < counts.length; u++) {
+            if (counts[u] > 0) users.add(u);
+        }
+        return users;
+    }
+
+    private int otherUser(int user) {
+        int other = random.nextInt(options.users - 1);
+        return other >= user ? other + 1 : other;
+    }
+
+    private Timestamp randomTimestamp() {
+        long seconds = (long) (random.nextDouble() * options.ageDays * 86_400L);
+        return Timestamp.valueOf(now.minusSeconds(seconds));
+    }
+
+    private long maxId(String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private void step(String name, SqlStep step) throws Exception {
+        long started = System.nanoTime();
+        System.out.println("Inserting " + name + "...");
+        step.run();
+        System.out.printf("  %s done in %d ms%n", name, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * PostgreSQL only turns a JDBC batch into multi-row inserts with reWriteBatchedInserts
+     */
+    private static String jdbcUrl(DatasetOptions options) {
+        String url = options.jdbcUrl;
+        if (url.startsWith("jdbc:postgresql:") && !url.contains("reWriteBatchedInserts")) {
+            url += (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true";
+        }
+        return url;
+    }
+
+    @FunctionalInterface
+    private interface SqlStep {
+        void run() throws Exception;
+    }
+
+    /**
+     * Prepared statement executed and committed every batch-size rows
+     */
+    private class Batch implements AutoCloseable {
+
+        private final PreparedStatement statement;
+        private int pending;
+
+        Batch(String sql) throws SQLException {
+            this.statement = connection.prepareStatement(sql);
+        }
+
+        void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.addBatch();
+            if (++pending >= options.batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            statement.executeBatch();
+            connection.commit();
+            pending = 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (pending > 0) {
+                    flush();
+                }
+            } finally {
+                statement.close();
+            }
+        }
+    }
+}
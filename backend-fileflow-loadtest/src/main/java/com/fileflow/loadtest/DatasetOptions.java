@@ -0,0 +1,116 @@
+package com.fileflow.loadtest;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options of the dataset generator, all in --name=value form.
+ */
+public class DatasetOptions {
+
+    String jdbcUrl = "jdbc:postgresql://localhost:5432/fileflow";
+    String dbUser = "postgres";
+    String dbPassword = "postgres";
+
+    int users = 10;
+    /** Files over all users, split between them by a Zipf law with exponent tenantSkew (0 = even) */
+    long files = 1_000_000;
+    /** Folders over all users, split in the same proportion as files */
+    int folders = 20_000;
+    double tenantSkew = 1.0;
+
+    /** Every user gets at least one chain this deep */
+    int maxDepth = 20;
+    /** P(depth d) is proportional to depthDecay^(d-1) for the remaining folders */
+    double depthDecay = 0.7;
+    /** Children per folder are capped at this */
+    int maxFanOut = 50;
+    /** Share of a user's files kept in the root listing */
+    double rootFileRatio = 0.1;
+
+    /** File sizes are log-normal around this median */
+    long sizeMedianKb = 256;
+    double sizeSigma = 1.5;
+    long maxSizeMb = 2048;
+    /** Relative weight of each extension */
+    Map<String, Integer> types = new LinkedHashMap<>();
+
+    int fileShares = 5_000;
+    int folderShares = 2_000;
+    /** Share of the shares already accepted by their target, the rest are pending */
+    double acceptedRatio = 0.8;
+
+    Path uploadDir = Path.of("./uploads");
+    boolean sparseFiles = true;
+    int ioThreads = 8;
+
+    int batchSize = 5_000;
+    int ageDays = 365;
+    long seed = 42;
+
+    public DatasetOptions() {
+        types.put("pdf", 20);
+        types.put("jpg", 20);
+        types.put("png", 10);
+        types.put("docx", 15);
+        types.put("xlsx", 8);
+        types.put("txt", 12);
+        types.put("mp4", 5);
+        types.put("zip", 10);
+    }
+
+    static DatasetOptions parse(String[] args) {
+        DatasetOptions options = new DatasetOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "jdbc-url" -> options.jdbcUrl = value;
+                case "db-user" -> options.dbUser = value;
+                case "db-password" -> options.dbPassword = value;
+                case "users" -> options.users = Integer.parseInt(value);
+                case "files" -> options.files = Long.parseLong(value);
+                case "folders" -> options.folders = Integer.parseInt(value);
+                case "tenant-skew" -> options.tenantSkew = Double.parseDouble(value);
+                case "max-depth" -> options.maxDepth = Integer.parseInt(value);
+                case "depth-decay" -> options.depthDecay = Double.parseDouble(value);
+                case "max-fan-out" -> options.maxFanOut = Integer.parseInt(value);
+                case "root-file-ratio" -> options.rootFileRatio = Double.parseDouble(value);
+                case "size-median-kb" -> options.sizeMedianKb = Long.parseLong(value);
+                case "size-sigma" -> options.sizeSigma = Double.parseDouble(value);
+                case "max-size-mb" -> options.maxSizeMb = Long.parseLong(value);
+                case "types" -> options.types = parseWeights(value);
+                case "file-shares" -> options.fileShares = Integer.parseInt(value);
+                case "folder-shares" -> options.folderShares = Integer.parseInt(value);
+                case "accepted-ratio" -> options.acceptedRatio = Double.parseDouble(value);
+                case "upload-dir" -> options.uploadDir = Path.of(value);
+                case "sparse-files" -> options.sparseFiles = Boolean.parseBoolean(value);
+                case "io-threads" -> options.ioThreads = Integer.parseInt(value);
+                case "batch-size" -> options.batchSize = Integer.parseInt(value);
+                case "age-days" -> options.ageDays = Integer.parseInt(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        if (options.users < 1 || options.maxDepth < 1 || options.maxFanOut < 1 || options.batchSize < 1) {
+            throw new IllegalArgumentException("--users, --max-depth, --max-fan-out and --batch-size must be positive");
+        }
+        return options;
+    }
+
+    /**
+     * pdf=20,jpg=30,... extensions left out are not generated
+     */
+    private static Map<String, Integer> parseWeights(String value) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split("=");
+            weights.put(parts[0].trim().toLowerCase(), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,86 @@
+package com.fileflow.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint latency histograms and error counts. Nothing is recorded until
+ * start() so warmup requests do not skew the results.
+ */
+public class LatencyStats {
+
+    private static final long MAX_TRACKED_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private volatile boolean recording;
+    private volatile long startedAt;
+    private volatile long stoppedAt;
+
+    public void start() {
+        startedAt = System.nanoTime();
+        recording = true;
+    }
+
+    public void stop() {
+        recording = false;
+        stoppedAt = System.nanoTime();
+    }
+
+    public void record(String endpoint, long elapsedNanos, boolean success) {
+        if (!recording) {
+            return;
+        }
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, key -> new Endpoint());
+        stats.latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), MAX_TRACKED_MICROS));
+        if (!success) {
+            stats.errors.increment();
+        }
+    }
+
+    public void print(PrintStream out) {
+        double seconds = Duration.ofNanos(stoppedAt - startedAt).toMillis() / 1000.0;
+        String format = "%-16s %9s %8s %10s %10s %10s %10s %10s%n";
+        out.printf(format, "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+
+        Histogram total = new Histogram(MAX_TRACKED_MICROS, 3);
+        long totalErrors = 0;
+        for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+            Histogram histogram = entry.getValue().latencies.copy();
+            long errors = entry.getValue().errors.sum();
+            total.add(histogram);
+            totalErrors += errors;
+            printRow(out, format, entry.getKey(), histogram, errors, seconds);
+        }
+        printRow(out, format, "TOTAL", total, totalErrors, seconds);
+        out.printf("%nMeasured %.1f s%n", seconds);
+    }
+
+    private void printRow(PrintStream out, String format, String name, Histogram histogram, long errors, double seconds) {
+        out.printf(format,
+            name,
+            histogram.getTotalCount(),
+            errors,
+            String.format("%.1f", histogram.getTotalCount() / seconds),
+            millis(histogram.getValueAtPercentile(50)),
+            millis(histogram.getValueAtPercentile(90)),
+            millis(histogram.getValueAtPercentile(99)),
+            millis(histogram.getMaxValue()));
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+
+    private static class Endpoint {
+        private final ConcurrentHistogram latencies = new ConcurrentHistogram(MAX_TRACKED_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,38 @@
+package com.fileflow.loadtest;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Test-only wiring added next to FileFlowApplication when the load test boots the app.
+ */
+@Configuration
+public class LoadTestConfiguration {
+
+    private static final String EMAIL_SERVICE_BEAN = "emailService";
+
+    /**
+     * Swaps the Gmail-backed EmailService for a stub before any bean is created
+     */
+    @Bean
+    public static BeanDefinitionRegistryPostProcessor stubEmailService() {
+        return new BeanDefinitionRegistryPostProcessor() {
+            @Override
+            public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+                if (registry.containsBeanDefinition(EMAIL_SERVICE_BEAN)) {
+                    registry.removeBeanDefinition(EMAIL_SERVICE_BEAN);
+                }
+                registry.registerBeanDefinition(EMAIL_SERVICE_BEAN, new RootBeanDefinition(StubEmailService.class));
+            }
+
+            @Override
+            public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+            }
+        };
+    }
+}
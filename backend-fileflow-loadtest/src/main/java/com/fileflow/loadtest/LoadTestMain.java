@@ -0,0 +1,103 @@
+package com.fileflow.loadtest;
+
+import com.fileflow.FileFlowApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load test. Boots the backend in this JVM on an in-memory H2 database and
+ * a temporary upload directory, seeds users, folders and files, runs the scenario mix
+ * with N concurrent virtual users and prints p50/p90/p99 latency and throughput per step.
+ *
+ * Example: mvn compile exec:java -Dexec.args="--users=50 --duration=PT2M --think-time=PT0.1S"
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        Path uploadDir = Files.createTempDirectory("fileflow-loadtest-");
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FileFlowApplication.class, LoadTestConfiguration.class)
+            .run(applicationArgs(options, uploadDir));
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            ApiClient client = new ApiClient("http://localhost:" + port);
+
+            System.out.printf("Seeding %d users with %d folders and %d files of %d KB each...%n",
+                options.users, options.foldersPerUser, options.filesPerUser, options.uploadSizeKb);
+            List<SeededUser> users = new DataSeeder(context, client, options).seed();
+
+            LatencyStats stats = run(options, users, client);
+
+            System.out.printf("%nUsers: %d, mix: %s, upload size: %d KB%n%n", options.users, options.mix, options.uploadSizeKb);
+            stats.print(System.out);
+        } finally {
+            context.close();
+            deleteRecursively(uploadDir);
+        }
+    }
+
+    private static LatencyStats run(LoadTestOptions options, List<SeededUser> users, ApiClient client) throws InterruptedException {
+        LatencyStats stats = new LatencyStats();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(options.users);
+        for (int i = 0; i < users.size(); i++) {
+            executor.submit(new VirtualUser(users.get(i), users, client, stats, options, running, options.seed * 31 + i));
+        }
+
+        System.out.printf("Warming up for %s...%n", options.warmup);
+        Thread.sleep(options.warmup.toMillis());
+        stats.start();
+        System.out.printf("Measuring for %s...%n", options.duration);
+        Thread.sleep(options.duration.toMillis());
+        stats.stop();
+
+        running.set(false);
+        executor.shutdown();
+        if (!executor.awaitTermination(2, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+        }
+        return stats;
+    }
+
+    private static String[] applicationArgs(LoadTestOptions options, Path uploadDir) {
+        List<String> args = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--management.server.port=-1",
+            "--spring.main.banner-mode=off",
+            "--spring.datasource.url=jdbc:h2:mem:fileflow-loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.hibernate.ddl-auto=create",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.show-sql=false",
+            "--file.upload-dir=" + uploadDir,
+            "--throttling.enabled=false", // measures the server, not the per-user plan limits
+            "--logging.level.root=WARN",
+            "--logging.level.org.springframework=WARN",
+            "--logging.level.com.fileflow=WARN"
+        ));
+        args.addAll(options.applicationArgs);
+        return args.toArray(new String[0]);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.fileflow.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options, all in --name=value form.
+ */
+public class LoadTestOptions {
+
+    int users = 20;
+    Duration duration = Duration.ofSeconds(60);
+    Duration warmup = Duration.ofSeconds(10);
+    Duration thinkTime = Duration.ZERO;
+    int filesPerUser = 20;
+    int foldersPerUser = 5;
+    int uploadSizeKb = 64;
+    long seed = 42;
+    /** Relative weight of each scenario step, see VirtualUser */
+    Map<String, Integer> mix = new LinkedHashMap<>();
+    /** --app.some.property=value is handed to the application as --some.property=value */
+    List<String> applicationArgs = new ArrayList<>();
+
+    public LoadTestOptions() {
+        mix.put("upload", 10);
+        mix.put("download", 25);
+        mix.put("list-files", 20);
+        mix.put("list-folders", 10);
+        mix.put("search", 15);
+        mix.put("folder-copy", 5);
+        mix.put("share", 5);
+        mix.put("file-details", 10);
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            if (arg.startsWith("--app.")) {
+                options.applicationArgs.add("--" + arg.substring("--app.".length()));
+                continue;
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "users" -> options.users = Integer.parseInt(value);
+                case "duration" -> options.duration = Duration.parse(value);
+                case "warmup" -> options.warmup = Duration.parse(value);
+                case "think-time" -> options.thinkTime = Duration.parse(value);
+                case "files-per-user" -> options.filesPerUser = Integer.parseInt(value);
+                case "folders-per-user" -> options.foldersPerUser = Integer.parseInt(value);
+                case "upload-size-kb" -> options.uploadSizeKb = Integer.parseInt(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                case "mix" -> options.mix = parseMix(value);
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        return options;
+    }
+
+    /**
+     * upload=10,download=30,... steps left out are not run
+     */
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split("=");
+            mix.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,23 @@
+package com.fileflow.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A user created for the run, with its token and the ids of what it owns.
+ */
+public class SeededUser {
+
+    final Long id;
+    final String email;
+    final String token;
+    final List<Long> folderIds = Collections.synchronizedList(new ArrayList<>());
+    final List<Long> fileIds = Collections.synchronizedList(new ArrayList<>());
+
+    SeededUser(Long id, String email, String token) {
+        this.id = id;
+        this.email = email;
+        this.token = token;
+    }
+}
@@ -0,0 +1,19 @@
+package com.fileflow.loadtest;
+
+import com.fileflow.service.EmailService;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Stands in for EmailService, whose constructor runs the interactive Gmail OAuth flow.
+ */
+public class StubEmailService extends EmailService {
+
+    public StubEmailService() {
+        super(null, null);
+    }
+
+    @Override
+    public ResponseEntity<?> sendEmail(String toEmail, String subject, String body) {
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.fileflow.loadtest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One simulated user running the weighted scenario mix in a closed loop until stopped.
+ */
+public class VirtualUser implements Runnable {
+
+    private static final AtomicLong COPY_COUNTER = new AtomicLong();
+
+    private final SeededUser user;
+    private final List<SeededUser> allUsers;
+    private final ApiClient client;
+    private final LatencyStats stats;
+    private final LoadTestOptions options;
+    private final AtomicBoolean running;
+    private final Random random;
+    private final String[] steps;
+    private final int[] cumulativeWeights;
+    private final byte[] uploadContent;
+
+    public VirtualUser(SeededUser user, List<SeededUser> allUsers, ApiClient client, LatencyStats stats,
+                       LoadTestOptions options, AtomicBoolean running, long seed) {
+        this.user = user;
+        this.allUsers = allUsers;
+        this.client = client;
+        this.stats = stats;
+        this.options = options;
+        this.running = running;
+        this.random = new Random(seed);
+
+        steps = options.mix.keySet().toArray(new String[0]);
+        cumulativeWeights = new int[steps.length];
+        int total = 0;
+        for (int i = 0; i < steps.length; i++) {
+            total += options.mix.get(steps[i]);
+            cumulativeWeights[i] = total;
+        }
+
+        uploadContent = new byte[options.uploadSizeKb * 1024];
+        random.nextBytes(uploadContent);
+    }
+
+    @Override
+    public void run() {
+        while (running.get()) {
+            String step = nextStep();
+            long start = System.nanoTime();
+            boolean success;
+            try {
+                success = execute(step);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                success = false;
+            }
+            stats.record(step, System.nanoTime() - start, success);
+            think();
+        }
+    }
+
+    private boolean execute(String step) throws Exception {
+        return switch (step) {
+            case "upload" -> {
+                Long folderId = random.nextBoolean() ? pick(user.folderIds) : null;
+                ApiClient.Result result = client.upload(user.token, "upload-" + random.nextInt(1_000_000) + ".bin", uploadContent, folderId);
+                Long id = result.isSuccess() ? result.dataId() : null;
+                if (id != null) {
+                    user.fileIds.add(id);
+                }
+                yield id != null;
+            }
+            case "download" -> client.download("/api/files/" + pick(user.fileIds) + "/download", user.token).isSuccess();
+            case "file-details" -> client.get("/api/files/" + pick(user.fileIds), user.token).isSuccess();
+            case "list-files" -> client.get("/api/files?page=0&size=20", user.token).isSuccess();
+            case "list-folders" -> client.get("/api/folders", user.token).isSuccess();
+            case "search" -> client.get("/api/files?search=" + ApiClient.encode("file-" + random.nextInt(10)), user.token).isSuccess();
+            case "folder-copy" -> client.postJson("/api/folders/" + pick(user.folderIds) + "/copy", user.token,
+                Map.of("newName", "copy-" + COPY_COUNTER.incrementAndGet())).isSuccess();
+            case "share" -> {
+                SeededUser target = pickOtherUser();
+                yield target != null && client.post("/api/file/share/" + pick(user.fileIds)
+                    + "?userEmail=" + ApiClient.encode(target.email), user.token).isSuccess();
+            }
+            default -> throw new IllegalArgumentException("Unknown scenario step " + step);
+        };
+    }
+
+    private String nextStep() {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return steps[i];
+            }
+        }
+        return steps[steps.length - 1];
+    }
+
+    private Long pick(List<Long> ids) {
+        synchronized (ids) {
+            return ids.get(random.nextInt(ids.size()));
+        }
+    }
+
+    private SeededUser pickOtherUser() {
+        if (allUsers.size() < 2) {
+            return null;
+        }
+        SeededUser target;
+        do {
+            target = allUsers.get(random.nextInt(allUsers.size()));
+        } while (target == user);
+        return target;
+    }
+
+    private void think() {
+        long thinkMillis = options.thinkTime.toMillis();
+        if (thinkMillis <= 0) {
+            return;
+        }
+        try {
+            // +-50% jitter so users do not move in lockstep
+            Thread.sleep(thinkMillis / 2 + ThreadLocalRandom.current().nextLong(thinkMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.fileflow.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+
+/**
+ * Worker pools for background work: bulk jobs and outgoing email. The queues are
+ * unbounded because every queued bulk job is also stored in bulk_jobs and emails are
+ * few; executor.* metrics are bound by Spring Boot.
+ *
+ * With spring.threads.virtual.enabled on a Java 21 runtime (the virtual-threads
+ * profile) the workers are virtual threads. The worker count still caps concurrency,
+ * and bulk job workers are kept below the connection pool size so they cannot starve
+ * request handling of connections.
+ */
+@Slf4j
+@Configuration
+public class ExecutorConfig {
+
+    private final boolean virtualThreads;
+
+    public ExecutorConfig(Environment environment) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        if (!virtualThreads && environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            log.warn("spring.threads.virtual.enabled is set but the runtime is Java {}, virtual threads need 21+",
+                Runtime.version().feature());
+        }
+    }
+
+    @Bean(name = "bulkJobExecutor")
+    public ThreadPoolTaskExecutor bulkJobExecutor(@Value("${bulk-jobs.workers:2}") int workers,
+                                                  ObjectProvider<DataSource> dataSource) {
+        int poolSize = connectionPoolSize(dataSource);
+        if (poolSize > 0 && workers > poolSize / 2) {
+            log.warn("bulk-jobs.workers={} would hold more than half of the {} pooled connections, using {}",
+                workers, poolSize, Math.max(1, poolSize / 2));
+            workers = Math.max(1, poolSize / 2);
+        }
+        // unfinished jobs are picked up again on the next start
+        return executor("bulk-job-", workers, false);
+    }
+
+    @Bean(name = "emailExecutor")
+    public ThreadPoolTaskExecutor emailExecutor(@Value("${email.dispatch.workers:2}") int workers) {
+        // finish sending what was accepted before shutting down
+        return executor("email-", workers, true);
+    }
+
+    private ThreadPoolTaskExecutor executor(String prefix, int workers, boolean waitOnShutdown) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setThreadNamePrefix(prefix);
+        if (virtualThreads) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory());
+        }
+        executor.setWaitForTasksToCompleteOnShutdown(waitOnShutdown);
+        executor.initialize();
+        return executor;
+    }
+
+    private static int connectionPoolSize(ObjectProvider<DataSource> dataSource) {
+        DataSource source = dataSource.getIfAvailable();
+        try {
+            return source != null && source.isWrapperFor(HikariDataSource.class)
+                ? source.unwrap(HikariDataSource.class).getMaximumPoolSize() : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.fileflow.config;
+
+import com.fileflow.service.EventStreamService;
+import com.fileflow.service.PresenceService;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics are exported in Prometheus format on the management port (see management.*).
+ * Service hot paths are timed with @Timed, Hikari, Tomcat, executors and repository
+ * invocations are bound by Spring Boot.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder realtimeConnectionMetrics(PresenceService presenceService, EventStreamService eventStreamService) {
+        return registry -> {
+            Gauge.builder("fileflow.presence.online.users", presenceService, service -> service.getOnlineUsers().size())
+                .description("Users with at least one open STOMP session")
+                .register(registry);
+            Gauge.builder("fileflow.events.connections", eventStreamService, EventStreamService::getConnectionCount)
+                .description("Open Server-Sent Events streams")
+                .register(registry);
+        };
+    }
+}
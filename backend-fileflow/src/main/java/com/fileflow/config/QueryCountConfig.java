@@ -0,0 +1,54 @@
+package com.fileflow.config;
+
+import com.fileflow.utils.RequestQueryStats;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+
+/**
+ * Wraps the DataSource in a datasource-proxy that counts the statements executed and
+ * the rows read on behalf of the current request (see RequestQueryStats and
+ * QueryBudgetFilter). Turned off with sql.instrumentation.enabled=false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sql.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryCountConfig {
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(dataSource)
+                    .name(beanName)
+                    .afterQuery((execInfo, queryInfoList) -> {
+                        RequestQueryStats stats = RequestQueryStats.current();
+                        if (stats != null) {
+                            queryInfoList.forEach(queryInfo -> stats.recordStatement(queryInfo.getQuery()));
+                        }
+                    })
+                    .proxyResultSet()
+                    .afterMethod(context -> {
+                        if (context.getTarget() instanceof ResultSet
+                            && "next".equals(context.getMethod().getName())
+                            && Boolean.TRUE.equals(context.getResult())) {
+                            RequestQueryStats stats = RequestQueryStats.current();
+                            if (stats != null) {
+                                stats.recordRow();
+                            }
+                        }
+                    })
+                    .build();
+            }
+        };
+    }
+}
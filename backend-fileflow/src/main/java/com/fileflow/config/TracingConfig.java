@@ -0,0 +1,26 @@
+package com.fileflow.config;
+
+import com.fileflow.utils.FileSpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Spans are head-sampled (management.tracing.sampling.probability) and exported in
+ * batches to every configured exporter: OTLP over HTTP when
+ * management.otlp.tracing.endpoint is set (a local OpenTelemetry collector or Jaeger
+ * can stand in), and/or a JSON lines file when tracing.file.path is set.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.file.path")
+    public FileSpanExporter fileSpanExporter(@Value("${tracing.file.path}") Path path) throws IOException {
+        return new FileSpanExporter(path);
+    }
+}
@@ -0,0 +1,113 @@
+package com.fileflow.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fileflow.controller.TransferHandler;
+import com.fileflow.security.JwtUtil;
+import com.fileflow.service.AccessCounterService;
+import com.fileflow.service.FileService;
+import com.fileflow.service.ThrottlingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+
+/**
+ * Opt-in reactive transfer server (transfer.server.enabled): Reactor Netty on its own
+ * port next to Tomcat, serving only streamed uploads and downloads.
+ *
+ * A transfer holds a connection but no thread, so slow clients cannot exhaust the
+ * Tomcat pool. Everything else stays on the servlet stack. Requests here do not go
+ * through Spring Security; TransferHandler checks the bearer token itself.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "transfer.server.enabled", havingValue = "true")
+public class TransferServerConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler transferBlockingScheduler(@Value("${transfer.server.blocking-threads:10}") int threads) {
+        // JDBC calls wait for a pooled connection anyway, no point in more threads than connections
+        return Schedulers.newBoundedElastic(threads, 10_000, "transfer-blocking");
+    }
+
+    @Bean
+    public TransferHandler transferHandler(FileService fileService,
+                                           ThrottlingService throttlingService,
+                                           AccessCounterService accessCounterService,
+                                           JwtUtil jwtUtil,
+                                           UserDetailsService userDetailsService,
+                                           MeterRegistry meterRegistry,
+                                           Scheduler transferBlockingScheduler,
+                                           @Value("${transfer.server.buffer-size:65536}") int bufferSize,
+                                           @Value("${transfer.server.max-file-size:${file.max-size}}") long maxFileSize) {
+        return new TransferHandler(fileService, throttlingService, accessCounterService, jwtUtil, userDetailsService,
+            meterRegistry, transferBlockingScheduler, bufferSize, maxFileSize);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> transferRoutes(TransferHandler transferHandler) {
+        return RouterFunctions.route()
+            .POST("/api/transfer/files", transferHandler::upload)
+            .GET("/api/transfer/files/{id}", transferHandler::download)
+            .build();
+    }
+
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer transferServer(RouterFunction<ServerResponse> transferRoutes,
+                                           ObjectMapper objectMapper,
+                                           CorsConfigurationSource corsConfigurationSource,
+                                           @Value("${transfer.server.port:8082}") int port,
+                                           @Value("${transfer.server.event-loop-threads:0}") int eventLoopThreads,
+                                           @Value("${transfer.server.idle-timeout:PT60S}") Duration idleTimeout) {
+        HandlerStrategies strategies = HandlerStrategies.builder()
+            .codecs(codecs -> {
+                codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+            })
+            .webFilter(new CorsWebFilter(reactiveCors(corsConfigurationSource)))
+            .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(transferRoutes, strategies);
+
+        int workers = eventLoopThreads > 0 ? eventLoopThreads : Runtime.getRuntime().availableProcessors();
+        DisposableServer server = HttpServer.create()
+            .port(port)
+            .runOn(LoopResources.create("transfer", workers, true))
+            .idleTimeout(idleTimeout)
+            .handle(new ReactorHttpHandlerAdapter(httpHandler))
+            .bindNow();
+        log.info("Reactive transfer server listening on port {} with {} event loop threads", server.port(), workers);
+        return server;
+    }
+
+    /**
+     * Same CORS rules as the servlet stack (CorsConfig)
+     */
+    private static org.springframework.web.cors.reactive.CorsConfigurationSource reactiveCors(CorsConfigurationSource servletSource) {
+        org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource source =
+            new org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource();
+        if (servletSource instanceof org.springframework.web.cors.UrlBasedCorsConfigurationSource urlBased) {
+            urlBased.getCorsConfigurations().forEach(source::registerCorsConfiguration);
+        }
+        return source;
+    }
+}
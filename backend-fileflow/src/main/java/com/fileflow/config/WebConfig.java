@@ -1,19 +1,40 @@
 package com.fileflow.config;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.PathMatchConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 
 public class WebConfig {
     @Bean
-    public WebMvcConfigurer webMvcConfigurer() {
+    public WebMvcConfigurer webMvcConfigurer(ObjectProvider<OpenEntityManagerInViewInterceptor> openEntityManagerInView) {
         return new WebMvcConfigurer() {
             @Override
             public void configurePathMatch(PathMatchConfigurer configurer) {
                 configurer.setUseTrailingSlashMatch(true);
             }
+
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                openEntityManagerInView.ifAvailable(interceptor -> registry.addWebRequestInterceptor(interceptor)
+                    .excludePathPatterns("/api/files/*/download", "/api/sharing/shared/**", "/api/direct/**"));
+            }
         };
     }
+
+    /**
+     * Open-in-view as Spring Boot sets it up, but not for downloads: the session would hold
+     * its pooled connection until the last byte is sent, which takes a while when throttled.
+     * Share links and signed download URLs are served from a cache and need no session at all.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.jpa", name = "open-in-view", havingValue = "true", matchIfMissing = true)
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
 }
@@ -2,6 +2,7 @@ package com.fileflow.config;
 
 
 import com.fileflow.utils.JwtChannelInterceptor;
+import com.fileflow.utils.NotificationReplayInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
@@ -18,6 +19,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private JwtChannelInterceptor jwtChannelInterceptor;
 
+    @Autowired
+    private NotificationReplayInterceptor notificationReplayInterceptor;
+
 
 
 
@@ -26,7 +30,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(jwtChannelInterceptor);
+        registration.interceptors(jwtChannelInterceptor, notificationReplayInterceptor);
     }
     @Override
     public void registerStompEndpoints (StompEndpointRegistry registry){
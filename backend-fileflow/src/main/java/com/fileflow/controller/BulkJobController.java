@@ -0,0 +1,79 @@
+package com.fileflow.controller;
+
+import com.fileflow.dto.BulkJobDTO;
+import com.fileflow.dto.BulkJobRequest;
+import com.fileflow.security.CustomUserDetails;
+import com.fileflow.service.BulkJobService;
+import com.fileflow.utils.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+@Tag(name = "Bulk Jobs", description = "Background bulk move, copy and delete with progress on /user/queue/jobs")
+public class BulkJobController {
+
+    private final BulkJobService bulkJobService;
+
+    @PostMapping
+    @Operation(summary = "Submit a bulk operation, returns the job at once")
+    public ResponseEntity<ApiResponse<BulkJobDTO>> submit(
+            @RequestBody BulkJobRequest request,
+            Authentication authentication) {
+        try {
+            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+            BulkJobDTO job = bulkJobService.submit(userDetails.getId(), request.getType(),
+                request.getItemIds(), request.getDestinationId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Job queued", job));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    @Operation(summary = "Most recent jobs of the current user")
+    public ResponseEntity<ApiResponse<List<BulkJobDTO>>> getJobs(
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        return ResponseEntity.ok(ApiResponse.success("Jobs retrieved", bulkJobService.getJobs(userDetails.getId(), limit)));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get a job and its progress")
+    public ResponseEntity<ApiResponse<BulkJobDTO>> getJob(
+            @PathVariable Long id,
+            Authentication authentication) {
+        try {
+            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+            return ResponseEntity.ok(ApiResponse.success("Job retrieved", bulkJobService.getJob(id, userDetails.getId())));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/cancel")
+    @Operation(summary = "Cancel a job, it stops after the chunk in progress")
+    public ResponseEntity<ApiResponse<BulkJobDTO>> cancel(
+            @PathVariable Long id,
+            Authentication authentication) {
+        try {
+            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+            return ResponseEntity.ok(ApiResponse.success("Cancellation requested", bulkJobService.cancel(id, userDetails.getId())));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.fileflow.controller;
+
+import com.fileflow.exception.ForbiddenException;
+import com.fileflow.service.AccessCounterService;
+import com.fileflow.service.DirectDownloadService;
+import com.fileflow.service.DirectDownloadService.DirectFile;
+import com.fileflow.service.ThrottlingService;
+import com.fileflow.utils.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Downloads through signed URLs (POST /api/files/{id}/direct-url), no JWT needed. Responses
+ * may be cached by the browser until the URL expires.
+ *
+ * The content type is the uploader's, so only images, video and audio are shown inline;
+ * anything else, SVG included, could run script on this origin and is sent as an
+ * attachment. A sandbox CSP covers what a browser renders anyway.
+ */
+@RestController
+@RequestMapping("/api/direct")
+@RequiredArgsConstructor
+@Tag(name = "Direct Downloads", description = "Signed download URL APIs")
+public class DirectDownloadController {
+
+    private final DirectDownloadService directDownloadService;
+    private final ThrottlingService throttlingService;
+    private final AccessCounterService accessCounterService;
+
+    @GetMapping("/{fileId}")
+    @Operation(summary = "Download a file through a signed URL (supports Range)")
+    public ResponseEntity<?> download(
+            @PathVariable Long fileId,
+            @RequestParam(required = false) Long expires,
+            @RequestParam(required = false) String signature,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            HttpServletRequest request) {
+        try {
+            DirectFile file = directDownloadService.resolve(fileId, expires, signature);
+            // players fetch a file in many ranges, count the first one only
+            if (range == null || range.startsWith("bytes=0-")) {
+                accessCounterService.recordFileAccess(fileId,
+                    request.getRemoteAddr() + "|" + request.getHeader(HttpHeaders.USER_AGENT));
+            }
+            MediaType contentType = contentType(file);
+            return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                    (isInlineSafe(contentType) ? "inline" : "attachment") + "; filename=\"" + file.fileName() + "\"")
+                .header("Content-Security-Policy", "sandbox")
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(Math.max(0, expires - Instant.now().getEpochSecond())))
+                    .cachePrivate())
+                .body(throttlingService.throttle(directDownloadService.content(file), file.ownerId(), file.ownerPlan()));
+        } catch (ForbiddenException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ApiResponse.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    private static MediaType contentType(DirectFile file) {
+        try {
+            return file.contentType() != null ? MediaType.parseMediaType(file.contentType()) : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    private static boolean isInlineSafe(MediaType contentType) {
+        String type = contentType.getType().toLowerCase();
+        return (type.equals("image") || type.equals("video") || type.equals("audio"))
+            && !contentType.getSubtype().toLowerCase().startsWith("svg");
+    }
+}
@@ -0,0 +1,50 @@
+package com.fileflow.controller;
+
+import com.fileflow.dto.StreamTicketDTO;
+import com.fileflow.security.CustomUserDetails;
+import com.fileflow.service.EventStreamService;
+import com.fileflow.service.StreamTicketService;
+import com.fileflow.utils.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+@Tag(name = "Event Stream", description = "Server-Sent Events for notifications and changes")
+public class EventStreamController {
+
+    private final EventStreamService eventStreamService;
+    private final StreamTicketService streamTicketService;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream share notifications and file/folder changes, resuming after Last-Event-ID")
+    public Flux<ServerSentEvent<Object>> streamEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam,
+            Authentication authentication) {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        return eventStreamService.openStream(userDetails.getId(), lastEventId);
+    }
+
+    @PostMapping("/ticket")
+    @Operation(summary = "Get a short-lived single-use ticket for opening the stream with ?ticket= (browser EventSource)")
+    public ResponseEntity<ApiResponse<StreamTicketDTO>> issueTicket(Authentication authentication) {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        return ResponseEntity.ok(ApiResponse.success("Stream ticket created",
+            streamTicketService.issue(userDetails.getUsername())));
+    }
+}
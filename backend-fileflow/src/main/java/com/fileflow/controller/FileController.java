@@ -1,23 +1,43 @@
 package com.fileflow.controller;
 
+import com.fileflow.exception.PreconditionFailedException;
 import com.fileflow.utils.ApiResponse;
+import com.fileflow.utils.ETagUtils;
+import com.fileflow.dto.AccessStatsDTO;
+import com.fileflow.dto.BulkJobDTO;
+import com.fileflow.dto.DirectDownloadUrlDTO;
 import com.fileflow.dto.FileDTO;
+import com.fileflow.entity.User;
+import com.fileflow.enums.AccessTarget;
+import com.fileflow.enums.BulkJobType;
+import com.fileflow.enums.TransferDirection;
 import com.fileflow.security.CustomUserDetails;
+import com.fileflow.service.AccessCounterService;
+import com.fileflow.service.BulkJobService;
+import com.fileflow.service.DirectDownloadService;
 import com.fileflow.service.FileService;
+import com.fileflow.service.ThrottlingService;
+import io.micrometer.core.annotation.Timed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -29,16 +49,21 @@ import java.util.Map;
 public class FileController {
 
     private final FileService fileService;
+    private final BulkJobService bulkJobService;
+    private final ThrottlingService throttlingService;
+    private final AccessCounterService accessCounterService;
+    private final DirectDownloadService directDownloadService;
 
     @PostMapping("/upload")
     @Operation(summary = "Upload a file")
+    @Timed(value = "fileflow.file.upload", histogram = true)
     public ResponseEntity<ApiResponse<FileDTO>> uploadFile(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "folderId", required = false) Long folderId,
             Authentication authentication) {
         try {
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            FileDTO uploadedFile = fileService.uploadFile(file, userDetails.getId(), folderId);
+            FileDTO uploadedFile = store(file, userDetails.getUser(), folderId);
             return ResponseEntity.ok(ApiResponse.success("File uploaded successfully", uploadedFile));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -86,7 +111,9 @@ public class FileController {
         try {
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
             FileDTO file = fileService.getFileDetails(id, userDetails.getId());
-            return ResponseEntity.ok(ApiResponse.success("File details retrieved", file));
+            return ResponseEntity.ok()
+                .eTag(ETagUtils.of(file.getVersion()))
+                .body(ApiResponse.success("File details retrieved", file));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -104,22 +131,56 @@ public class FileController {
             
             // Get file metadata for proper headers
             FileDTO fileMetadata = fileService.getFileDetails(id, userDetails.getId());
-            
+            accessCounterService.recordFileAccess(id, "user:" + userDetails.getId());
+
             return ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType(fileMetadata.getContentType()))
                 .header(HttpHeaders.CONTENT_DISPOSITION, 
                     "attachment; filename=\"" + fileMetadata.getOriginalFileName() + "\"")
-                .body(resource);
+                .body(throttlingService.throttle(resource, userDetails.getUser()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @PostMapping("/{id}/direct-url")
+    @Operation(summary = "Get a short-lived signed URL that downloads the file without authentication")
+    public ResponseEntity<ApiResponse<DirectDownloadUrlDTO>> getDirectUrl(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long expiresInSeconds,
+            Authentication authentication) {
+        try {
+            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+            DirectDownloadUrlDTO directUrl = directDownloadService.issue(id, userDetails.getId(), expiresInSeconds);
+            return ResponseEntity.ok(ApiResponse.success("Download URL created", directUrl));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/access-stats")
+    @Operation(summary = "Get download count, unique visitors and last access of a file")
+    public ResponseEntity<ApiResponse<AccessStatsDTO>> getAccessStats(
+            @PathVariable Long id,
+            Authentication authentication) {
+        try {
+            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+            fileService.getFileDetails(id, userDetails.getId());
+            AccessStatsDTO stats = accessCounterService.getStats(AccessTarget.FILE, id);
+            return ResponseEntity.ok(ApiResponse.success("Access stats retrieved", stats));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}/rename")
-    @Operation(summary = "Rename a file")
+    @Operation(summary = "Rename a file (If-Match: the file's ETag to fail with 412 if it changed since)")
     public ResponseEntity<ApiResponse<FileDTO>> renameFile(
             @PathVariable Long id,
             @RequestBody Map<String, String> request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication authentication) {
         try {
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
@@ -130,8 +191,17 @@ public class FileController {
                     .body(ApiResponse.error("File name is required"));
             }
             
-            FileDTO renamedFile = fileService.renameFile(id, userDetails.getId(), newName.trim());
-            return ResponseEntity.ok(ApiResponse.success("File renamed successfully", renamedFile));
+            FileDTO renamedFile = fileService.renameFile(id, userDetails.getId(), newName.trim(),
+                ETagUtils.parseIfMatch(ifMatch));
+            return ResponseEntity.ok()
+                .eTag(ETagUtils.of(renamedFile.getVersion()))
+                .body(ApiResponse.success("File renamed successfully", renamedFile));
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("The file was changed by another request, reload it and try again"));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -139,14 +209,21 @@ public class FileController {
     }
 
     @DeleteMapping("/{id}")
-    @Operation(summary = "Delete a file")
+    @Operation(summary = "Delete a file (If-Match: the file's ETag to fail with 412 if it changed since)")
     public ResponseEntity<ApiResponse<Void>> deleteFile(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication authentication) {
         try {
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            fileService.deleteFile(id, userDetails.getId());
+            fileService.deleteFile(id, userDetails.getId(), ETagUtils.parseIfMatch(ifMatch));
             return ResponseEntity.ok(ApiResponse.success("File deleted successfully", null));
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("The file was changed by another request, reload it and try again"));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -182,9 +259,10 @@ public class FileController {
     }
 
     @PutMapping("/bulk/move")
-    @Operation(summary = "Move multiple files to a folder")
-    public ResponseEntity<ApiResponse<String>> bulkMoveFiles(
+    @Operation(summary = "Move multiple files to a folder (as a background job with async=true)")
+    public ResponseEntity<ApiResponse<?>> bulkMoveFiles(
             @RequestBody Map<String, Object> request,
+            @RequestParam(defaultValue = "false") boolean async,
             Authentication authentication) {
         try {
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
@@ -205,6 +283,12 @@ public class FileController {
             
             Long destinationId = destinationFolderId != null ? destinationFolderId.longValue() : null;
             
+            if (async) {
+                BulkJobDTO job = bulkJobService.submit(userDetails.getId(), BulkJobType.MOVE_FILES, longFileIds, destinationId);
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Bulk move queued as job " + job.getId(), job));
+            }
+
             fileService.bulkMoveFiles(longFileIds, destinationId, userDetails.getId());
             return ResponseEntity.ok(ApiResponse.success(
                 fileIds.size() + " files moved successfully", null));
@@ -215,9 +299,10 @@ public class FileController {
     }
 
     @PostMapping("/bulk/copy")
-    @Operation(summary = "Copy multiple files to a folder")
-    public ResponseEntity<ApiResponse<String>> bulkCopyFiles(
+    @Operation(summary = "Copy multiple files to a folder (as a background job with async=true)")
+    public ResponseEntity<ApiResponse<?>> bulkCopyFiles(
             @RequestBody Map<String, Object> request,
+            @RequestParam(defaultValue = "false") boolean async,
             Authentication authentication) {
         try {
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
@@ -238,6 +323,12 @@ public class FileController {
             
             Long destinationId = destinationFolderId != null ? destinationFolderId.longValue() : null;
             
+            if (async) {
+                BulkJobDTO job = bulkJobService.submit(userDetails.getId(), BulkJobType.COPY_FILES, longFileIds, destinationId);
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Bulk copy queued as job " + job.getId(), job));
+            }
+
             fileService.bulkCopyFiles(longFileIds, destinationId, userDetails.getId());
             return ResponseEntity.ok(ApiResponse.success(
                 fileIds.size() + " files copied successfully", null));
@@ -246,4 +337,27 @@ public class FileController {
                 .body(ApiResponse.error(e.getMessage()));
         }
     }
+
+    /**
+     * Writes the part to storage outside the user lock and any transaction, paced at the
+     * user's upload rate if the plan has one, then registers the file, like the streamed
+     * uploads of TransferHandler
+     */
+    private FileDTO store(MultipartFile file, User user, Long folderId) throws IOException {
+        if (file.isEmpty()) {
+            throw new RuntimeException("File is empty");
+        }
+        fileService.checkUploadAllowed(user.getId(), folderId, file.getSize());
+        Path path = fileService.newStoragePath(user.getId(), file.getOriginalFilename());
+        try {
+            try (InputStream in = throttlingService.throttle(file.getInputStream(), user, TransferDirection.UPLOAD)) {
+                fileService.writeStoredFile(path, in);
+            }
+            return fileService.registerStoredFile(user.getId(), folderId, path,
+                file.getOriginalFilename(), file.getContentType(), file.getSize());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
 }
@@ -11,7 +11,6 @@ import com.fileflow.service.FileShareService;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.FileNotFoundException;
@@ -23,13 +22,11 @@ import java.util.List;
 @AllArgsConstructor
 public class FileShareController {
     private FileShareService fileShareService;
-    private final SimpMessagingTemplate messagingTemplate;
     @PostMapping("/share/{fileId}")
     public ResponseEntity<String> shareFile(@PathVariable Long fileId, @RequestParam String userEmail) throws UserNotFoundException, FileNotFoundException, IOException {
 
-        ShareNotificationDTO fileShare;
         try {
-            fileShare = fileShareService.shareFileWithUser(fileId, userEmail);
+            fileShareService.shareFileWithUser(fileId, userEmail);
         } catch (UserNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
         } catch (FileNotFoundException e) {
@@ -37,12 +34,6 @@ public class FileShareController {
         } catch (IOException e) {
             return ResponseEntity.badRequest().build();
         }
-
-        messagingTemplate.convertAndSendToUser(
-                userEmail,
-                "/queue/notify",
-                fileShare
-        );
         return ResponseEntity.ok().build();
     }
 
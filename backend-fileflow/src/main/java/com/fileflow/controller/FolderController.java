@@ -1,17 +1,25 @@
 package com.fileflow.controller;
 
 import com.fileflow.dto.BulkDeleteResponse;
+import com.fileflow.dto.BulkJobDTO;
 import com.fileflow.dto.BulkOperationRequest;
 import com.fileflow.dto.FolderShareRequest;
 import com.fileflow.dto.FolderShareDTO;
+import com.fileflow.exception.PreconditionFailedException;
 import com.fileflow.utils.ApiResponse;
+import com.fileflow.utils.ETagUtils;
 import com.fileflow.dto.FolderDTO;
+import com.fileflow.enums.BulkJobType;
 import com.fileflow.security.CustomUserDetails;
+import com.fileflow.service.BulkJobService;
 import com.fileflow.service.FolderService;
 import com.fileflow.service.FolderShareService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -29,6 +37,7 @@ public class FolderController {
 
     private final FolderService folderService;
     private final FolderShareService folderShareService;
+    private final BulkJobService bulkJobService;
 
     @PostMapping
     @Operation(summary = "Create a new folder")
@@ -78,7 +87,9 @@ public class FolderController {
         try {
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
             FolderDTO folder = folderService.getFolderDetails(id, userDetails.getId());
-            return ResponseEntity.ok(ApiResponse.success("Folder details retrieved successfully", folder));
+            return ResponseEntity.ok()
+                .eTag(ETagUtils.of(folder.getVersion()))
+                .body(ApiResponse.success("Folder details retrieved successfully", folder));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -101,10 +112,11 @@ public class FolderController {
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "Update folder")
+    @Operation(summary = "Update folder (If-Match: the folder's ETag to fail with 412 if it changed since)")
     public ResponseEntity<ApiResponse<FolderDTO>> updateFolder(
             @PathVariable Long id,
             @RequestBody Map<String, Object> request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication authentication) {
         try {
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
@@ -113,8 +125,17 @@ public class FolderController {
             String color = (String) request.get("color");
             String description = (String) request.get("description");
             
-            FolderDTO folder = folderService.updateFolder(id, name, color, description, userDetails.getId());
-            return ResponseEntity.ok(ApiResponse.success("Folder updated successfully", folder));
+            FolderDTO folder = folderService.updateFolder(id, name, color, description, userDetails.getId(),
+                ETagUtils.parseIfMatch(ifMatch));
+            return ResponseEntity.ok()
+                .eTag(ETagUtils.of(folder.getVersion()))
+                .body(ApiResponse.success("Folder updated successfully", folder));
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("The folder was changed by another request, reload it and try again"));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -138,14 +159,21 @@ public class FolderController {
     }
 
     @DeleteMapping("/{id}")
-    @Operation(summary = "Delete folder")
+    @Operation(summary = "Delete folder (If-Match: the folder's ETag to fail with 412 if it changed since)")
     public ResponseEntity<ApiResponse<Void>> deleteFolder(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication authentication) {
         try {
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            folderService.deleteFolder(id, userDetails.getId());
+            folderService.deleteFolder(id, userDetails.getId(), ETagUtils.parseIfMatch(ifMatch));
             return ResponseEntity.ok(ApiResponse.success("Folder deleted successfully", null));
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("The folder was changed by another request, reload it and try again"));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -181,10 +209,11 @@ public class FolderController {
     }
 
     @PutMapping("/{id}/move")
-    @Operation(summary = "Move folder to a new parent")
+    @Operation(summary = "Move folder to a new parent (If-Match: the folder's ETag to fail with 412 if it changed since)")
     public ResponseEntity<ApiResponse<FolderDTO>> moveFolder(
             @PathVariable Long id,
             @RequestBody Map<String, Object> request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication authentication) {
         try {
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
@@ -192,8 +221,17 @@ public class FolderController {
             Long newParentId = request.get("newParentId") != null ? 
                 Long.valueOf(request.get("newParentId").toString()) : null;
             
-            FolderDTO folder = folderService.moveFolder(id, newParentId, userDetails.getId());
-            return ResponseEntity.ok(ApiResponse.success("Folder moved successfully", folder));
+            FolderDTO folder = folderService.moveFolder(id, newParentId, userDetails.getId(),
+                ETagUtils.parseIfMatch(ifMatch));
+            return ResponseEntity.ok()
+                .eTag(ETagUtils.of(folder.getVersion()))
+                .body(ApiResponse.success("Folder moved successfully", folder));
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("The folder was changed by another request, reload it and try again"));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -226,12 +264,20 @@ public class FolderController {
     // =========================
 
     @PostMapping("/bulk/move")
-    @Operation(summary = "Bulk move folders")
-    public ResponseEntity<ApiResponse<List<FolderDTO>>> bulkMoveFolder(
+    @Operation(summary = "Bulk move folders (as a background job with async=true)")
+    public ResponseEntity<ApiResponse<?>> bulkMoveFolder(
             @RequestBody BulkOperationRequest request,
+            @RequestParam(defaultValue = "false") boolean async,
             Authentication authentication) {
         try {
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+
+            if (async && request.getFolderIds() != null) {
+                BulkJobDTO job = bulkJobService.submit(userDetails.getId(), BulkJobType.MOVE_FOLDERS,
+                    request.getFolderIds(), request.getNewParentId());
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Bulk move queued as job " + job.getId(), job));
+            }
             
             List<FolderDTO> movedFolders = folderService.bulkMoveFolder(
                 request.getFolderIds(), 
@@ -246,12 +292,20 @@ public class FolderController {
     }
 
     @PostMapping("/bulk/copy")
-    @Operation(summary = "Bulk copy folders")
-    public ResponseEntity<ApiResponse<List<FolderDTO>>> bulkCopyFolder(
+    @Operation(summary = "Bulk copy folders (as a background job with async=true)")
+    public ResponseEntity<ApiResponse<?>> bulkCopyFolder(
             @RequestBody BulkOperationRequest request,
+            @RequestParam(defaultValue = "false") boolean async,
             Authentication authentication) {
         try {
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+
+            if (async && request.getFolderIds() != null) {
+                BulkJobDTO job = bulkJobService.submit(userDetails.getId(), BulkJobType.COPY_FOLDERS,
+                    request.getFolderIds(), request.getNewParentId());
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Bulk copy queued as job " + job.getId(), job));
+            }
             
             List<FolderDTO> copiedFolders = folderService.bulkCopyFolder(
                 request.getFolderIds(), 
@@ -266,12 +320,20 @@ public class FolderController {
     }
 
     @DeleteMapping("/bulk/delete")
-    @Operation(summary = "Bulk delete folders")
-    public ResponseEntity<ApiResponse<BulkDeleteResponse>> bulkDeleteFolder(
+    @Operation(summary = "Bulk delete folders (as a background job with async=true)")
+    public ResponseEntity<ApiResponse<?>> bulkDeleteFolder(
             @RequestBody BulkOperationRequest request,
+            @RequestParam(defaultValue = "false") boolean async,
             Authentication authentication) {
         try {
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+
+            if (async && request.getFolderIds() != null) {
+                BulkJobDTO job = bulkJobService.submit(userDetails.getId(), BulkJobType.DELETE_FOLDERS,
+                    request.getFolderIds(), request.getNewParentId());
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Bulk delete queued as job " + job.getId(), job));
+            }
             
             int deletedCount = folderService.bulkDeleteFolder(request.getFolderIds(), userDetails.getId());
             
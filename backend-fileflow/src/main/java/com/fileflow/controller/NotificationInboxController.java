@@ -0,0 +1,70 @@
+package com.fileflow.controller;
+
+import com.fileflow.dto.NotificationAckRequest;
+import com.fileflow.dto.NotificationDTO;
+import com.fileflow.security.CustomUserDetails;
+import com.fileflow.service.NotificationService;
+import com.fileflow.utils.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+@Tag(name = "Notifications", description = "Persistent notification inbox")
+public class NotificationInboxController {
+
+    private final NotificationService notificationService;
+
+    @GetMapping
+    @Operation(summary = "List notifications, newest first, or only unacknowledged ones oldest first")
+    public ResponseEntity<ApiResponse<List<NotificationDTO>>> getNotifications(
+            @RequestParam(defaultValue = "false") boolean unacked,
+            @RequestParam(defaultValue = "50") int limit,
+            Authentication authentication) {
+        try {
+            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+            List<NotificationDTO> notifications = notificationService.getNotifications(userDetails.getId(), unacked, limit);
+            return ResponseEntity.ok(ApiResponse.success("Notifications retrieved successfully", notifications));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/read")
+    @Operation(summary = "Mark a notification as read")
+    public ResponseEntity<ApiResponse<NotificationDTO>> markAsRead(
+            @PathVariable Long id,
+            Authentication authentication) {
+        try {
+            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+            NotificationDTO notification = notificationService.markAsRead(id, userDetails.getId());
+            return ResponseEntity.ok(ApiResponse.success("Notification marked as read", notification));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/ack")
+    @Operation(summary = "Acknowledge notifications so they are no longer replayed")
+    public ResponseEntity<ApiResponse<Integer>> acknowledge(
+            @RequestBody NotificationAckRequest request,
+            Authentication authentication) {
+        try {
+            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+            int acked = notificationService.acknowledge(userDetails.getId(), request.getIds(), request.getUpTo());
+            return ResponseEntity.ok(ApiResponse.success("Notifications acknowledged", acked));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.fileflow.controller;
+
+import com.fileflow.security.CustomUserDetails;
+import com.fileflow.service.PresenceService;
+import com.fileflow.utils.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/presence")
+@RequiredArgsConstructor
+@Tag(name = "Presence", description = "Online status of users sharing folders with the current user")
+public class PresenceController {
+
+    private final PresenceService presenceService;
+
+    @GetMapping("/contacts")
+    @Operation(summary = "Get online users among the current user's sharing contacts")
+    public ResponseEntity<ApiResponse<List<String>>> getOnlineContacts(Authentication authentication) {
+        try {
+            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+            List<String> online = presenceService.getOnlineContacts(userDetails.getEmail());
+            return ResponseEntity.ok(ApiResponse.success("Online contacts retrieved", online));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.fileflow.controller;
+
+import com.fileflow.dto.ProfilingRecordingDTO;
+import com.fileflow.dto.ProfilingSummaryDTO;
+import com.fileflow.service.ProfilingService;
+import com.fileflow.utils.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * JFR recordings on demand, restricted to admin.emails in SecurityConfig
+ */
+@RestController
+@RequestMapping("/api/admin/profiling")
+@RequiredArgsConstructor
+@Tag(name = "Profiling", description = "Admin only: Java Flight Recorder recordings")
+public class ProfilingController {
+
+    private final ProfilingService profilingService;
+
+    @PostMapping("/recordings")
+    @Operation(summary = "Start a JFR recording (settings: default or profile, duration as ISO-8601, e.g. PT2M)")
+    public ResponseEntity<ApiResponse<ProfilingRecordingDTO>> start(
+            @RequestParam(defaultValue = "default") String settings,
+            @RequestParam(required = false) Duration duration,
+            Authentication authentication) {
+        try {
+            ProfilingRecordingDTO recording = profilingService.start(settings, duration, authentication.getName());
+            return ResponseEntity.ok(ApiResponse.success("Recording started", recording));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/recordings")
+    @Operation(summary = "List the retained recordings")
+    public ResponseEntity<ApiResponse<List<ProfilingRecordingDTO>>> list() {
+        return ResponseEntity.ok(ApiResponse.success("Recordings retrieved", profilingService.list()));
+    }
+
+    @PostMapping("/recordings/{id}/stop")
+    @Operation(summary = "Stop a recording before its duration is up")
+    public ResponseEntity<ApiResponse<ProfilingRecordingDTO>> stop(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Recording stopped", profilingService.stop(id)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/recordings/{id}/summary")
+    @Operation(summary = "Hottest methods and allocation sites of a recording")
+    public ResponseEntity<ApiResponse<ProfilingSummaryDTO>> summary(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Summary retrieved", profilingService.summarize(id)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/recordings/{id}/download")
+    @Operation(summary = "Download the .jfr (a snapshot while the recording is still running)")
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable Long id) {
+        try {
+            ProfilingService.RecordingFileHandle handle = profilingService.open(id);
+            StreamingResponseBody body = out -> {
+                try {
+                    Files.copy(handle.path(), out);
+                } finally {
+                    if (handle.temporary()) {
+                        Files.deleteIfExists(handle.path());
+                    }
+                }
+            };
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(handle.path()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"fileflow-" + id + ".jfr\"")
+                .body(body);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/recordings/{id}")
+    @Operation(summary = "Close a recording and delete its file")
+    public ResponseEntity<ApiResponse<Void>> delete(@PathVariable Long id) {
+        try {
+            profilingService.delete(id);
+            return ResponseEntity.ok(ApiResponse.success("Recording deleted", null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
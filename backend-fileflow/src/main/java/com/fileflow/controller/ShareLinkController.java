@@ -0,0 +1,121 @@
+package com.fileflow.controller;
+
+import com.fileflow.dto.ShareUnlockRequest;
+import com.fileflow.exception.ShareFileException;
+import com.fileflow.exception.TooManyRequestsException;
+import com.fileflow.exception.UnauthorizedException;
+import com.fileflow.service.ShareLinkService;
+import com.fileflow.service.ShareLinkService.ShareLink;
+import com.fileflow.service.ThrottlingService;
+import com.fileflow.utils.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Public share links, no account needed. A password-protected link is unlocked once with
+ * POST .../unlock, which sets a cookie for the link's path; the metadata and content
+ * requests that follow present the cookie.
+ */
+@RestController
+@RequestMapping("/api/sharing/shared/{token}")
+@RequiredArgsConstructor
+@Tag(name = "Share Links", description = "Public share link APIs")
+public class ShareLinkController {
+
+    private final ShareLinkService shareLinkService;
+    private final ThrottlingService throttlingService;
+
+    @GetMapping
+    @Operation(summary = "Get the file behind a share link")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getSharedFile(
+            @PathVariable String token,
+            @CookieValue(name = ShareLinkService.UNLOCK_COOKIE, required = false) String unlockCookie,
+            HttpServletRequest servletRequest) {
+        try {
+            ShareLink link = unlockedLink(token, unlockCookie);
+            shareLinkService.recordAccess(link, visitor(servletRequest));
+            return ResponseEntity.ok(ApiResponse.success("Shared file retrieved", shareLinkService.describe(link)));
+        } catch (ShareFileException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        } catch (UnauthorizedException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/unlock")
+    @Operation(summary = "Unlock a password-protected share link (sets a cookie)")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> unlock(
+            @PathVariable String token,
+            @RequestBody ShareUnlockRequest request,
+            HttpServletRequest servletRequest) {
+        try {
+            ShareLink link = shareLinkService.resolve(token);
+            return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE,
+                    shareLinkService.unlock(link, request.getPassword(), servletRequest.isSecure(),
+                        servletRequest.getRemoteAddr()).toString())
+                .body(ApiResponse.success("Share link unlocked", shareLinkService.describe(link)));
+        } catch (ShareFileException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        } catch (UnauthorizedException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.error(e.getMessage()));
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/content")
+    @Operation(summary = "Download the file behind a share link (supports Range)")
+    public ResponseEntity<?> getContent(
+            @PathVariable String token,
+            @CookieValue(name = ShareLinkService.UNLOCK_COOKIE, required = false) String unlockCookie,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            HttpServletRequest servletRequest) {
+        try {
+            ShareLink link = unlockedLink(token, unlockCookie);
+            if (!Boolean.TRUE.equals(link.allowDownload())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Downloads are disabled for this share link"));
+            }
+            // players fetch a file in many ranges, count the first one only
+            if (range == null || range.startsWith("bytes=0-")) {
+                shareLinkService.recordDownload(link, visitor(servletRequest));
+            }
+            return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(link.contentType() != null
+                    ? link.contentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + link.fileName() + "\"")
+                .body(throttlingService.throttle(shareLinkService.content(link), link.ownerId(), link.ownerPlan()));
+        } catch (ShareFileException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        } catch (UnauthorizedException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Anonymous visitors are told apart by address and browser, for the unique visitor count
+     */
+    private static String visitor(HttpServletRequest request) {
+        return request.getRemoteAddr() + "|" + request.getHeader(HttpHeaders.USER_AGENT);
+    }
+
+    private ShareLink unlockedLink(String token, String unlockCookie) {
+        ShareLink link = shareLinkService.resolve(token);
+        if (!shareLinkService.isUnlocked(link, unlockCookie)) {
+            throw new UnauthorizedException("This share link needs a password, unlock it first");
+        }
+        return link;
+    }
+}
@@ -0,0 +1,40 @@
+package com.fileflow.controller;
+
+import com.fileflow.dto.ChangeSetDTO;
+import com.fileflow.security.CustomUserDetails;
+import com.fileflow.service.ChangeLogService;
+import com.fileflow.utils.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@Tag(name = "Delta Sync", description = "Incremental file and folder changes for sync clients")
+public class SyncController {
+
+    private final ChangeLogService changeLogService;
+
+    @GetMapping("/changes")
+    @Operation(summary = "Get file and folder changes since a cursor")
+    public ResponseEntity<ApiResponse<ChangeSetDTO>> getChanges(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "500") int limit,
+            Authentication authentication) {
+        try {
+            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+            ChangeSetDTO changes = changeLogService.getChangesSince(userDetails.getId(), cursor, limit);
+            return ResponseEntity.ok(ApiResponse.success("Changes retrieved", changes));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.fileflow.controller;
+
+import com.fileflow.dto.FileDTO;
+import com.fileflow.entity.User;
+import com.fileflow.enums.TransferDirection;
+import com.fileflow.exception.TooManyRequestsException;
+import com.fileflow.exception.UnAuthenticatedException;
+import com.fileflow.security.CustomUserDetails;
+import com.fileflow.security.JwtUtil;
+import com.fileflow.service.AccessCounterService;
+import com.fileflow.service.FileService;
+import com.fileflow.service.ThrottlingService;
+import com.fileflow.utils.ApiResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Upload and download handlers of the reactive transfer server (TransferServerConfig).
+ *
+ * File bytes go between the socket and an AsynchronousFileChannel as DataBuffers, one
+ * buffer in flight at a time, so a slow client only slows its own stream and holds no
+ * thread while waiting. The blocking parts (JWT user lookup, quota check, metadata) run
+ * on a scheduler sized to the connection pool. Bandwidth limits (ThrottlingService) delay
+ * the next buffer, which in turn holds back reads from the socket or the disk.
+ */
+@Slf4j
+public class TransferHandler {
+
+    private static final DataBufferFactory BUFFER_FACTORY = DefaultDataBufferFactory.sharedInstance;
+
+    private final FileService fileService;
+    private final ThrottlingService throttlingService;
+    private final AccessCounterService accessCounterService;
+    private final JwtUtil jwtUtil;
+    private final UserDetailsService userDetailsService;
+    private final MeterRegistry meterRegistry;
+    private final Scheduler blockingScheduler;
+    private final int bufferSize;
+    private final long maxFileSize;
+
+    public TransferHandler(FileService fileService, ThrottlingService throttlingService,
+                           AccessCounterService accessCounterService, JwtUtil jwtUtil,
+                           UserDetailsService userDetailsService, MeterRegistry meterRegistry,
+                           Scheduler blockingScheduler, int bufferSize, long maxFileSize) {
+        this.fileService = fileService;
+        this.throttlingService = throttlingService;
+        this.accessCounterService = accessCounterService;
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.meterRegistry = meterRegistry;
+        this.blockingScheduler = blockingScheduler;
+        this.bufferSize = bufferSize;
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * POST /api/transfer/files?name=report.pdf&folderId=12 with the raw file as the body
+     */
+    public Mono<ServerResponse> upload(ServerRequest request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String name = request.queryParam("name").orElse(null);
+        Long folderId = request.queryParam("folderId").map(Long::valueOf).orElse(null);
+        long declaredSize = request.headers().contentLength().orElse(0);
+        String contentType = request.headers().contentType()
+            .map(MediaType::toString)
+            .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        if (name == null || name.isBlank()) {
+            return error(HttpStatus.BAD_REQUEST, "File name is required");
+        }
+
+        Mono<FileDTO> stored = authenticate(request).flatMap(user -> blocking(() -> {
+            fileService.checkUploadAllowed(user.getId(), folderId, declaredSize);
+            return fileService.newStoragePath(user.getId(), name);
+        }).flatMap(path -> {
+            AtomicLong received = new AtomicLong();
+            Flux<DataBuffer> body = request.body(BodyExtractors.toDataBuffers())
+                .handle((buffer, sink) -> {
+                    if (received.addAndGet(buffer.readableByteCount()) > maxFileSize) {
+                        DataBufferUtils.release(buffer);
+                        sink.error(new RuntimeException("File size exceeds maximum allowed size"));
+                    } else {
+                        sink.next(buffer);
+                    }
+                });
+            return DataBufferUtils.write(throttlingService.throttle(body, user, TransferDirection.UPLOAD), path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)
+                .then(blocking(() -> fileService.registerStoredFile(user.getId(), folderId, path, name, contentType, received.get())))
+                .doFinally(signal -> {
+                    // failed, rejected or abandoned by the client: drop the partial file
+                    if (signal != SignalType.ON_COMPLETE) {
+                        blockingScheduler.schedule(() -> deleteQuietly(path));
+                    }
+                });
+        }));
+
+        return stored
+            .flatMap(file -> ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ApiResponse.success("File uploaded successfully", file)))
+            .onErrorResume(this::errorResponse)
+            .doFinally(signal -> sample.stop(meterRegistry.timer("fileflow.transfer.reactive",
+                "operation", "upload", "outcome", outcome(signal))));
+    }
+
+    /**
+     * GET /api/transfer/files/{id}
+     */
+    public Mono<ServerResponse> download(ServerRequest request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Long fileId;
+        try {
+            fileId = Long.valueOf(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            return error(HttpStatus.BAD_REQUEST, "Invalid file id");
+        }
+
+        return authenticate(request)
+            .flatMap(user -> blocking(() -> new StoredFile(user,
+                fileService.getFileDetails(fileId, user.getId()), fileService.getStoredFilePath(fileId, user.getId()))))
+            .doOnNext(stored -> accessCounterService.recordFileAccess(fileId, "user:" + stored.user().getId()))
+            .flatMap(stored -> ServerResponse.ok()
+                .contentType(MediaType.parseMediaType(stored.file().getContentType() != null
+                    ? stored.file().getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE))
+                .contentLength(stored.file().getFileSize())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"" + stored.file().getOriginalFileName() + "\"")
+                .body(BodyInserters.fromDataBuffers(throttlingService.throttle(
+                        DataBufferUtils.read(stored.path(), BUFFER_FACTORY, bufferSize), stored.user(), TransferDirection.DOWNLOAD)
+                    .doFinally(signal -> sample.stop(meterRegistry.timer("fileflow.transfer.reactive",
+                        "operation", "download", "outcome", outcome(signal)))))))
+            .onErrorResume(this::errorResponse);
+    }
+
+    /**
+     * The user of the bearer token, like JwtAuthenticationFilter on the servlet stack, within
+     * their request rate like RateLimitFilter
+     */
+    private Mono<User> authenticate(ServerRequest request) {
+        String header = request.headers().firstHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith("Bearer ")) {
+            return Mono.error(new UnAuthenticatedException("Authentication required"));
+        }
+        String token = header.substring(7);
+        return blocking(() -> {
+            String username;
+            try {
+                username = jwtUtil.extractUsername(token);
+            } catch (Exception e) {
+                throw new UnAuthenticatedException("Invalid token");
+            }
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (!jwtUtil.validateToken(token, userDetails)) {
+                throw new UnAuthenticatedException("Invalid token");
+            }
+            User user = ((CustomUserDetails) userDetails).getUser();
+            throttlingService.acquireRequest(user);
+            return user;
+        });
+    }
+
+    private <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(blockingScheduler);
+    }
+
+    private Mono<ServerResponse> errorResponse(Throwable e) {
+        if (e instanceof TooManyRequestsException tooMany) {
+            return ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(tooMany.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ApiResponse.error(e.getMessage()));
+        }
+        if (e instanceof UnAuthenticatedException || e instanceof AuthenticationException) {
+            return error(HttpStatus.UNAUTHORIZED, e.getMessage());
+        }
+        if (e instanceof RuntimeException && !(e.getCause() instanceof IOException)) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        log.warn("Transfer failed: {}", e.toString());
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Transfer failed");
+    }
+
+    private static Mono<ServerResponse> error(HttpStatus status, String message) {
+        return ServerResponse.status(status)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(ApiResponse.error(message));
+    }
+
+    private static String outcome(SignalType signal) {
+        return signal == SignalType.CANCEL ? "cancelled" : "completed";
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (Exception e) {
+            log.warn("Could not delete partial upload {}: {}", path, e.getMessage());
+        }
+    }
+
+    private record StoredFile(User user, FileDTO file, Path path) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.fileflow.dto;
+
+import com.fileflow.enums.AccessTarget;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccessStatsDTO {
+    private AccessTarget targetType;
+    private Long targetId;
+    private long hits;
+    private long uniqueVisitors;          // estimated, within a few percent
+    private LocalDateTime lastAccessedAt;
+}
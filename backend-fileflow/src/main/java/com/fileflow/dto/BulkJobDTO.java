@@ -0,0 +1,27 @@
+package com.fileflow.dto;
+
+import com.fileflow.enums.BulkJobStatus;
+import com.fileflow.enums.BulkJobType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkJobDTO {
+    private Long id;
+    private BulkJobType type;
+    private BulkJobStatus status;
+    private Long destinationId;
+    private int totalItems;
+    private int processedItems;       // succeeded + failed
+    private int failedItems;
+    private String lastError;
+    private boolean cancelRequested;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
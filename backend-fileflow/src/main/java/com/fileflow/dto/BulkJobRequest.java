@@ -0,0 +1,17 @@
+package com.fileflow.dto;
+
+import com.fileflow.enums.BulkJobType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkJobRequest {
+    private BulkJobType type;
+    private List<Long> itemIds;       // file ids for *_FILES, folder ids for *_FOLDERS
+    private Long destinationId;       // target folder, null for the root (ignored for deletes)
+}
@@ -0,0 +1,27 @@
+package com.fileflow.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fileflow.enums.ChangeType;
+import com.fileflow.enums.ResourceType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(Include.NON_NULL)
+public class ChangeEventDTO {
+    private Long seq; // the user's change log position, in commit order
+    private ChangeType type;
+    private ResourceType resource;
+    private Long id;
+    private Long folderId;
+    private Long previousFolderId;
+    private String name;
+    private Long size;
+    private LocalDateTime at;
+}
@@ -0,0 +1,18 @@
+package com.fileflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeSetDTO {
+    private List<ChangeEventDTO> changes = new ArrayList<>();
+    private Long cursor;              // pass back as ?cursor= on the next call
+    private boolean hasMore;
+    private boolean resyncRequired;   // cursor unknown or compacted away: list everything again
+}
@@ -0,0 +1,15 @@
+package com.fileflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DirectDownloadUrlDTO {
+    private String url;
+    private LocalDateTime expiresAt;
+}
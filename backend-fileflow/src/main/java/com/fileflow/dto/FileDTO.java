@@ -22,6 +22,7 @@ public class FileDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private String fileExtension;
+    private Long version;
     
     public String getFormattedFileSize() {
         if (fileSize == null) return "0 B";
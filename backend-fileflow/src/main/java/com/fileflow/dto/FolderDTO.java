@@ -23,6 +23,7 @@ public class FolderDTO {
     private String description;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
     
     // Statistics
     private Integer fileCount = 0;
@@ -0,0 +1,14 @@
+package com.fileflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotspotDTO {
+    private String frame;             // class.method:line, with the allocated class for allocation sites
+    private long weight;              // samples for methods, sampled bytes for allocation sites
+    private double percent;
+}
@@ -0,0 +1,16 @@
+package com.fileflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationAckRequest {
+
+    private List<Long> ids;
+    private Long upTo; // acknowledges every notification with id <= upTo
+}
@@ -0,0 +1,20 @@
+package com.fileflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDTO {
+    private Long id;
+    private String type;
+    private Map<String, Object> payload;
+    private LocalDateTime createdAt;
+    private LocalDateTime readAt;
+    private LocalDateTime ackedAt;
+}
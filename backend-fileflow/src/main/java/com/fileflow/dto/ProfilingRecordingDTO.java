@@ -0,0 +1,20 @@
+package com.fileflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProfilingRecordingDTO {
+    private Long id;
+    private String profile;           // JFR settings: default (low overhead) or profile
+    private String state;             // RUNNING, STOPPED, ...
+    private Instant startTime;
+    private Long durationSeconds;     // stops by itself after this
+    private Long sizeBytes;           // once stopped
+    private String startedBy;
+}
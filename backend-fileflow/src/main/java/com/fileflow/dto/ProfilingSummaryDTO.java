@@ -0,0 +1,20 @@
+package com.fileflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProfilingSummaryDTO {
+    private Long recordingId;
+    private long executionSamples;
+    private long allocatedBytes;                                   // estimated from allocation samples
+    private List<HotspotDTO> hotMethods = new ArrayList<>();       // top frame of each execution sample
+    private List<HotspotDTO> hotApplicationMethods = new ArrayList<>(); // first com.fileflow frame
+    private List<HotspotDTO> allocationSites = new ArrayList<>();
+}
@@ -1,5 +1,6 @@
 package com.fileflow.dto;
 
+import com.fileflow.enums.UserPlan;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,6 +19,7 @@ public class UserDTO {
     private String fullName;
     private Long storageUsed;
     private Long maxStorage;
+    private UserPlan plan;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
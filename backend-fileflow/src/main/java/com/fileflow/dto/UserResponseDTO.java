@@ -1,6 +1,6 @@
 package com.fileflow.dto;
 
-
+import com.fileflow.enums.UserPlan;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -14,6 +14,7 @@ public class UserResponseDTO {
     private String fullName;
     private long storageUsed;
     private long maxStorage;
+    private UserPlan plan;
     private Double storageUsedPercentage;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -0,0 +1,48 @@
+package com.fileflow.entity;
+
+import com.fileflow.enums.AccessTarget;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Accumulated accesses of a file or share link, written by AccessCounterService in
+ * batches. visitorSketch holds the HyperLogLog registers behind uniqueVisitors, so
+ * later flushes can merge into it without counting a visitor twice.
+ */
+@Entity
+@Table(name = "access_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_access_stats_target", columnNames = {"target_type", "target_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccessStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type", nullable = false, length = 16)
+    private AccessTarget targetType;
+
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+
+    @Column(name = "hits", nullable = false)
+    private Long hits;
+
+    @Column(name = "unique_visitors", nullable = false)
+    private Long uniqueVisitors;
+
+    @Column(name = "last_accessed_at")
+    private LocalDateTime lastAccessedAt;
+
+    @Column(name = "visitor_sketch", length = 1024)
+    private byte[] visitorSketch;
+}
@@ -0,0 +1,86 @@
+package com.fileflow.entity;
+
+import com.fileflow.enums.BulkJobStatus;
+import com.fileflow.enums.BulkJobType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A bulk move, copy or delete run in the background. Items are processed in order and
+ * processedItems is committed together with each chunk, so after a restart the job
+ * carries on from the first unprocessed item. Dynamic updates keep the worker's
+ * progress writes from overwriting a concurrent cancelRequested.
+ */
+@Entity
+@Table(name = "bulk_jobs",
+        indexes = {
+            @Index(name = "idx_bulk_jobs_user_id", columnList = "user_id, id"),
+            @Index(name = "idx_bulk_jobs_status", columnList = "status")
+        })
+@DynamicUpdate
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private BulkJobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private BulkJobStatus status;
+
+    @Column(name = "item_ids", nullable = false, columnDefinition = "TEXT")
+    private String itemIds; // comma separated file or folder ids
+
+    @Column(name = "destination_id")
+    private Long destinationId; // null for the root
+
+    @Column(name = "total_items", nullable = false)
+    private int totalItems;
+
+    @Column(name = "processed_items", nullable = false)
+    private int processedItems;
+
+    @Column(name = "failed_items", nullable = false)
+    private int failedItems;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private boolean cancelRequested;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public List<Long> getItemIdList() {
+        return Arrays.stream(itemIds.split(",")).map(Long::valueOf).toList();
+    }
+}
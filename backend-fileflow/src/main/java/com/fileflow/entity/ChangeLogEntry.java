@@ -0,0 +1,65 @@
+package com.fileflow.entity;
+
+import com.fileflow.enums.ChangeType;
+import com.fileflow.enums.ResourceType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per change visible to one user. seq numbers the user's entries in commit
+ * order (ChangeSequence) and is the sync cursor: "changes since cursor" is a range scan
+ * on (user_id, seq). The identity id is assigned at insert, not at commit, so it is not.
+ */
+@Entity
+@Table(name = "change_log",
+        indexes = {
+            @Index(name = "idx_change_log_user_seq", columnList = "user_id, seq"),
+            @Index(name = "idx_change_log_created_at", columnList = "created_at")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeLogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "seq")
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 16)
+    private ChangeType changeType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "resource_type", nullable = false, length = 16)
+    private ResourceType resourceType;
+
+    @Column(name = "resource_id", nullable = false)
+    private Long resourceId;
+
+    @Column(name = "folder_id")
+    private Long folderId;
+
+    @Column(name = "previous_folder_id")
+    private Long previousFolderId;
+
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "size")
+    private Long size;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,31 @@
+package com.fileflow.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change log positions of one user: the last seq handed out and the highest seq removed
+ * by retention. A transaction that writes a change for the user increments lastSeq and
+ * so holds the row until it commits, which makes the user's entries commit in seq order.
+ */
+@Entity
+@Table(name = "change_sequence")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeSequence {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "last_seq", nullable = false)
+    private Long lastSeq;
+
+    @Column(name = "purged_seq", nullable = false)
+    private Long purgedSeq;
+}
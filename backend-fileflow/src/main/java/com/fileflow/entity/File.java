@@ -55,6 +55,11 @@ public class File {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // optimistic locking, exposed as the ETag of the file endpoints
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @ManyToOne
     @JoinColumn(name = "original_file_id")
     private File originalFile;
@@ -69,6 +69,11 @@ public class Folder {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // optimistic locking, exposed as the ETag of the folder endpoints
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     // Helper methods
     public String getFullPath() {
         if (parent == null) {
@@ -0,0 +1,41 @@
+package com.fileflow.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "notifications",
+        indexes = @Index(name = "idx_notifications_user_id", columnList = "user_id, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Notification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 32)
+    private String type; // "folder-share", "file-share"
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload; // JSON body delivered to the client
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+
+    @Column(name = "acked_at")
+    private LocalDateTime ackedAt;
+}
@@ -1,6 +1,7 @@
 package com.fileflow.entity;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fileflow.enums.UserPlan;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.Getter;
@@ -30,6 +31,11 @@ public class User {
     private long storageUsed;
     private long maxStorage;
 
+    // bandwidth and request rate limits, see ThrottlingService
+    @Enumerated(EnumType.STRING)
+    @Column(name = "plan", nullable = false, columnDefinition = "varchar(20) default 'FREE'")
+    private UserPlan plan = UserPlan.FREE;
+
     @Column(name = "created_at", updatable = false)
     @Temporal(TemporalType.TIMESTAMP)
     private LocalDateTime createdAt;
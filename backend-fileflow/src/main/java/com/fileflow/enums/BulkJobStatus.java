@@ -0,0 +1,9 @@
+package com.fileflow.enums;
+
+public enum BulkJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,5 @@
+package com.fileflow.enums;
+
+public enum BulkJobType {
+    MOVE_FILES, COPY_FILES, MOVE_FOLDERS, COPY_FOLDERS, DELETE_FOLDERS
+}
@@ -0,0 +1,5 @@
+package com.fileflow.enums;
+
+public enum TransferDirection {
+    UPLOAD, DOWNLOAD
+}
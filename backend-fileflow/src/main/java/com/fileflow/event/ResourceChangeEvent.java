@@ -0,0 +1,93 @@
+package com.fileflow.event;
+
+import com.fileflow.entity.File;
+import com.fileflow.entity.Folder;
+import com.fileflow.enums.ChangeType;
+import com.fileflow.enums.ResourceType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Application event published by the services whenever a file or folder changes.
+ * Values are captured when the event is built so listeners running after commit
+ * never touch detached entities.
+ *
+ * folderId is the listing the resource lives in after the change (null for root),
+ * previousFolderId the listing it left for MOVED events. audienceUserId is set when
+ * the resource itself did not change but appeared in or disappeared from one user's
+ * "shared with me" view (share accepted, revoked...).
+ */
+@Getter
+@AllArgsConstructor
+public class ResourceChangeEvent {
+
+    private final ChangeType type;
+    private final ResourceType resourceType;
+    private final Long resourceId;
+    private final Long ownerId;
+    private final String ownerEmail;
+    private final Long folderId;
+    private final Long previousFolderId;
+    private final String name;
+    private final Long size;
+    private final LocalDateTime occurredAt;
+    private final Long audienceUserId;
+
+    public static ResourceChangeEvent ofFile(ChangeType type, File file) {
+        return ofFile(type, file, null);
+    }
+
+    public static ResourceChangeEvent ofFile(ChangeType type, File file, Long previousFolderId) {
+        return new ResourceChangeEvent(
+            type,
+            ResourceType.FILE,
+            file.getId(),
+            file.getUser().getId(),
+            file.getUser().getEmail(),
+            file.getFolder() != null ? file.getFolder().getId() : null,
+            previousFolderId,
+            file.getOriginalFileName(),
+            file.getFileSize(),
+            LocalDateTime.now(),
+            null
+        );
+    }
+
+    public static ResourceChangeEvent ofFolder(ChangeType type, Folder folder) {
+        return ofFolder(type, folder, null);
+    }
+
+    public static ResourceChangeEvent ofFolder(ChangeType type, Folder folder, Long previousFolderId) {
+        return new ResourceChangeEvent(
+            type,
+            ResourceType.FOLDER,
+            folder.getId(),
+            folder.getUser().getId(),
+            folder.getUser().getEmail(),
+            folder.getParent() != null ? folder.getParent().getId() : null,
+            previousFolderId,
+            folder.getName(),
+            null,
+            LocalDateTime.now(),
+            null
+        );
+    }
+
+    public static ResourceChangeEvent ofSharedFile(ChangeType type, File file, Long audienceUserId) {
+        ResourceChangeEvent event = ofFile(type, file);
+        return new ResourceChangeEvent(event.type, event.resourceType, event.resourceId, event.ownerId,
+            event.ownerEmail, null, null, event.name, event.size, event.occurredAt, audienceUserId);
+    }
+
+    public static ResourceChangeEvent ofSharedFolder(ChangeType type, Folder folder, Long audienceUserId) {
+        ResourceChangeEvent event = ofFolder(type, folder);
+        return new ResourceChangeEvent(event.type, event.resourceType, event.resourceId, event.ownerId,
+            event.ownerEmail, null, null, event.name, event.size, event.occurredAt, audienceUserId);
+    }
+
+    public boolean isShareScoped() {
+        return audienceUserId != null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.fileflow.event;
+
+import com.fileflow.enums.StreamEventType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A committed notification or change log entry for one user, published after commit
+ * so the event stream can forward it to that user's open connections.
+ *
+ * seq is the notification id or the user's change log seq; both only grow, which is
+ * what Last-Event-ID resume relies on. Change seqs of a user have no gaps.
+ */
+@Getter
+@AllArgsConstructor
+public class UserStreamEvent {
+
+    private final Long userId;
+    private final StreamEventType type;
+    private final Long seq;
+    private final Object payload;
+}
@@ -0,0 +1,11 @@
+package com.fileflow.exception;
+
+/**
+ * The If-Match version of a request no longer matches the resource (412)
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
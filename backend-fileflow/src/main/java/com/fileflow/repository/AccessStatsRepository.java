@@ -0,0 +1,14 @@
+package com.fileflow.repository;
+
+import com.fileflow.entity.AccessStats;
+import com.fileflow.enums.AccessTarget;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AccessStatsRepository extends JpaRepository<AccessStats, Long> {
+
+    Optional<AccessStats> findByTargetTypeAndTargetId(AccessTarget targetType, Long targetId);
+}
@@ -0,0 +1,36 @@
+package com.fileflow.repository;
+
+import com.fileflow.entity.BulkJob;
+import com.fileflow.enums.BulkJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BulkJobRepository extends JpaRepository<BulkJob, Long> {
+
+    Optional<BulkJob> findByIdAndUserId(Long id, Long userId);
+
+    List<BulkJob> findByUserIdOrderByIdDesc(Long userId, Pageable pageable);
+
+    List<BulkJob> findByStatusInOrderByIdAsc(Collection<BulkJobStatus> statuses);
+
+    @Query("SELECT j.cancelRequested FROM BulkJob j WHERE j.id = :id")
+    boolean isCancelRequested(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE BulkJob j SET j.cancelRequested = true WHERE j.id = :id")
+    int requestCancel(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM BulkJob j WHERE j.finishedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,29 @@
+package com.fileflow.repository;
+
+import com.fileflow.entity.ChangeLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    List<ChangeLogEntry> findByUserIdAndSeqGreaterThanOrderBySeqAsc(Long userId, Long cursor, Pageable pageable);
+
+    // Drop entries superseded by a newer entry for the same resource and user
+    @Modifying
+    @Query("DELETE FROM ChangeLogEntry c WHERE c.createdAt < :cutoff AND EXISTS (" +
+           "SELECT n.id FROM ChangeLogEntry n WHERE n.userId = c.userId AND n.resourceType = c.resourceType " +
+           "AND n.resourceId = c.resourceId AND n.seq > c.seq)")
+    int deleteSupersededBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM ChangeLogEntry c WHERE c.createdAt < :cutoff")
+    int deleteAllBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,29 @@
+package com.fileflow.repository;
+
+import com.fileflow.entity.ChangeSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ChangeSequenceRepository extends JpaRepository<ChangeSequence, Long> {
+
+    // locks the row until commit
+    @Modifying
+    @Query("UPDATE ChangeSequence s SET s.lastSeq = s.lastSeq + :count WHERE s.userId = :userId")
+    int increment(@Param("userId") Long userId, @Param("count") long count);
+
+    @Query("SELECT s.lastSeq FROM ChangeSequence s WHERE s.userId = :userId")
+    Long findLastSeq(@Param("userId") Long userId);
+
+    // Raise purgedSeq to the last seq of each user that deleteAllBefore(cutoff) is about to remove
+    @Modifying
+    @Query("UPDATE ChangeSequence s SET s.purgedSeq = (" +
+           "SELECT MAX(c.seq) FROM ChangeLogEntry c WHERE c.userId = s.userId AND c.createdAt < :cutoff AND c.seq > s.purgedSeq) " +
+           "WHERE EXISTS (SELECT c.id FROM ChangeLogEntry c WHERE c.userId = s.userId AND c.createdAt < :cutoff AND c.seq > s.purgedSeq)")
+    int markPurgedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
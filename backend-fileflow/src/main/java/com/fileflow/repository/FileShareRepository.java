@@ -4,7 +4,6 @@ package com.fileflow.repository;
 import com.fileflow.entity.File;
 import com.fileflow.entity.FileShare;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -48,9 +47,9 @@ public interface FileShareRepository extends JpaRepository<FileShare,Long> {
     @Query("SELECT sh FROM FileShare sh WHERE sh.shareToken = :shareToken AND sh.isActive = true AND (sh.expiresAt IS NULL OR sh.expiresAt > :currentTime)")
     Optional<FileShare> findActiveShareByToken(@Param("shareToken") String shareToken, @Param("currentTime") LocalDateTime currentTime);
 
-    @Modifying
-    @Query("UPDATE FileShare sh SET sh.accessCount = sh.accessCount + 1 WHERE sh.id = :shareId")
-    void incrementAccessCount(@Param("shareId") Long shareId);
+    // the file is fetched too, share links are served from outside any transaction
+    @Query("SELECT sh FROM FileShare sh JOIN FETCH sh.file WHERE sh.shareToken = :shareToken AND sh.isActive = true AND (sh.expiresAt IS NULL OR sh.expiresAt > :currentTime)")
+    Optional<FileShare> findActiveShareWithFileByToken(@Param("shareToken") String shareToken, @Param("currentTime") LocalDateTime currentTime);
 
     @Query("SELECT sh FROM FileShare sh WHERE sh.file.user.id = :userId ORDER BY sh.createdAt DESC")
     List<FileShare> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId);
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,8 +28,20 @@ public interface FolderShareRepository extends JpaRepository<FolderShare, Long>
     @Query("SELECT fs FROM FolderShare fs WHERE fs.folder.id = :folderId AND fs.targetUser.id = :userId")
     Optional<FolderShare> findByFolderIdAndTargetUserId(@Param("folderId") Long folderId, @Param("userId") Long userId);
     
+    @Query("SELECT fs FROM FolderShare fs WHERE fs.folder.id IN :folderIds AND fs.targetUser.id = :userId AND fs.status = 'accepted'")
+    List<FolderShare> findAcceptedSharesForFoldersAndUser(@Param("folderIds") Collection<Long> folderIds, @Param("userId") Long userId);
+
     @Query("SELECT fs FROM FolderShare fs WHERE fs.folder.id = :folderId AND fs.status = 'accepted'")
     List<FolderShare> findAcceptedSharesForFolder(@Param("folderId") Long folderId);
     
+    @Query("SELECT DISTINCT fs.targetUser.id FROM FolderShare fs WHERE fs.folder.id IN :folderIds AND fs.status = 'accepted'")
+    List<Long> findAcceptedTargetUserIdsForFolders(@Param("folderIds") Collection<Long> folderIds);
+    
     void deleteByFolderIdAndTargetUserId(Long folderId, Long targetUserId);
+    
+    @Query("SELECT DISTINCT fs.targetUser.email FROM FolderShare fs WHERE fs.owner.email = :email AND fs.status = 'accepted'")
+    List<String> findAcceptedTargetEmailsByOwnerEmail(@Param("email") String email);
+    
+    @Query("SELECT DISTINCT fs.owner.email FROM FolderShare fs WHERE fs.targetUser.email = :email AND fs.status = 'accepted'")
+    List<String> findAcceptedOwnerEmailsByTargetEmail(@Param("email") String email);
 }
@@ -0,0 +1,47 @@
+package com.fileflow.repository;
+
+import com.fileflow.entity.Notification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+    List<Notification> findByUserIdOrderByIdDesc(Long userId, Pageable pageable);
+
+    List<Notification> findByUserIdAndAckedAtIsNullOrderByIdAsc(Long userId, Pageable pageable);
+
+    List<Notification> findByUserIdAndAckedAtIsNullAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId, Pageable pageable);
+
+    Optional<Notification> findByIdAndUserId(Long id, Long userId);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.ackedAt = :now, n.readAt = COALESCE(n.readAt, :now) " +
+           "WHERE n.userId = :userId AND n.id IN :ids AND n.ackedAt IS NULL")
+    int acknowledge(@Param("userId") Long userId, @Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.ackedAt = :now, n.readAt = COALESCE(n.readAt, :now) " +
+           "WHERE n.userId = :userId AND n.id <= :upTo AND n.ackedAt IS NULL")
+    int acknowledgeUpTo(@Param("userId") Long userId, @Param("upTo") Long upTo, @Param("now") LocalDateTime now);
+
+    @Query("SELECT n.userId FROM Notification n GROUP BY n.userId HAVING COUNT(n) > :max")
+    List<Long> findUserIdsWithMoreThan(@Param("max") long max);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.userId = :userId AND n.id <= :id")
+    int deleteByUserIdUpTo(@Param("userId") Long userId, @Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.createdAt < :cutoff")
+    int deleteAllBefore(@Param("cutoff") LocalDateTime cutoff);
+}
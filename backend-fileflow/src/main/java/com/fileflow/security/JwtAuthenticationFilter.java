@@ -4,6 +4,9 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.fileflow.service.StreamTicketService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -20,43 +23,65 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String EVENT_STREAM_PATH = "/api/events";
+    private static final String DIRECT_DOWNLOAD_PATH = "/api/direct/";
+
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final MeterRegistry meterRegistry;
+    private final StreamTicketService streamTicketService;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        // signed URLs carry their own authorization, a stray token would only cost a user lookup
+        return request.getRequestURI().startsWith(request.getContextPath() + DIRECT_DOWNLOAD_PATH);
+    }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                   @NonNull HttpServletResponse response, 
                                   @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        try {
+            final String authorizationHeader = request.getHeader("Authorization");
         
-        final String authorizationHeader = request.getHeader("Authorization");
-        
-        String username = null;
-        String jwt = null;
+            String username = null;
+            String jwt = null;
         
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                username = jwtUtil.extractUsername(jwt);
-            } catch (Exception e) {
-                logger.error("Error extracting username from JWT", e);
+            if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+                jwt = authorizationHeader.substring(7);
+            }
+
+            if (jwt != null) {
+                try {
+                    username = jwtUtil.extractUsername(jwt);
+                } catch (Exception e) {
+                    logger.error("Error extracting username from JWT", e);
+                }
+            } else if (EVENT_STREAM_PATH.equals(request.getRequestURI()) && request.getParameter("ticket") != null) {
+                // Browser EventSource cannot set headers, so the event stream also accepts a single-use ticket
+                username = streamTicketService.redeem(request.getParameter("ticket"));
             }
-        }
         
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
             
-            if (jwtUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = 
-                    new UsernamePasswordAuthenticationToken(
-                        userDetails, 
-                        null, 
-                        userDetails.getAuthorities()
-                    );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+                if (jwt == null || jwtUtil.validateToken(jwt, userDetails)) {
+                    UsernamePasswordAuthenticationToken authToken = 
+                        new UsernamePasswordAuthenticationToken(
+                            userDetails, 
+                            null, 
+                            userDetails.getAuthorities()
+                        );
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                }
             }
+        } finally {
+            // Only the token handling is timed, not the rest of the chain; a failed user lookup is timed too
+            sample.stop(meterRegistry.timer("fileflow.security.jwt.filter"));
         }
-        
         filterChain.doFilter(request, response);
     }
 }
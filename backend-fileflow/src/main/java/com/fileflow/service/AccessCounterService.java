@@ -0,0 +1,270 @@
+package com.fileflow.service;
+
+import com.fileflow.dto.AccessStatsDTO;
+import com.fileflow.entity.AccessStats;
+import com.fileflow.enums.AccessTarget;
+import com.fileflow.repository.AccessStatsRepository;
+import com.fileflow.utils.HyperLogLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Accesses of share links and file downloads, added up in memory and written every
+ * access-counters.flush-interval, so a popular link costs a few batched statements per
+ * interval instead of an UPDATE, and a wait on the same row lock, per hit.
+ *
+ * Each share or file has an accumulator per interval: hits in a LongAdder and the last
+ * access in a LongAccumulator, both striped so concurrent hits do not contend, and
+ * a HyperLogLog sketch of the visitors. A flush retires the accumulators it takes; a hit
+ * that lands on a retired one moves what the flush did not see to a new one, so nothing
+ * is counted twice or lost.
+ *
+ * The flush adds hits to file_share.access_count and merges everything into access_stats,
+ * access-counters.batch-size targets per transaction. A batch that fails is kept for the
+ * next flush. Counts not yet flushed when the instance is killed are lost; a normal
+ * shutdown flushes them.
+ */
+@Slf4j
+@Service
+public class AccessCounterService {
+
+    private static final String ADD_SHARE_ACCESS_COUNT =
+        "UPDATE file_share SET access_count = COALESCE(access_count, 0) + :hits WHERE id = :id";
+    private static final String LOCK_STATS =
+        "SELECT target_id, last_accessed_at, visitor_sketch FROM access_stats " +
+        "WHERE target_type = :type AND target_id IN (:ids) ORDER BY target_id FOR UPDATE";
+    private static final String UPDATE_STATS =
+        "UPDATE access_stats SET hits = hits + :hits, unique_visitors = :uniqueVisitors, " +
+        "last_accessed_at = :lastAccessedAt, visitor_sketch = :visitorSketch " +
+        "WHERE target_type = :type AND target_id = :id";
+    private static final String INSERT_STATS =
+        "INSERT INTO access_stats (target_type, target_id, hits, unique_visitors, last_accessed_at, visitor_sketch) " +
+        "VALUES (:type, :id, :hits, :uniqueVisitors, :lastAccessedAt, :visitorSketch)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final AccessStatsRepository accessStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final Map<Target, Accumulator> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public AccessCounterService(NamedParameterJdbcTemplate jdbcTemplate,
+                                AccessStatsRepository accessStatsRepository,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${access-counters.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accessStatsRepository = accessStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        Gauge.builder("fileflow.access.pending", pending, Map::size)
+            .description("Shares and files with accesses not yet flushed")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Counts one access of a share link; visitor identifies who for the unique count, null
+     * when unknown
+     */
+    public void recordShareAccess(Long shareId, String visitor) {
+        record(new Target(AccessTarget.SHARE, shareId), 1, System.currentTimeMillis(), visitor, null);
+    }
+
+    public void recordFileAccess(Long fileId, String visitor) {
+        record(new Target(AccessTarget.FILE, fileId), 1, System.currentTimeMillis(), visitor, null);
+    }
+
+    /**
+     * What is stored for the file or share plus what this instance has not flushed yet
+     */
+    public AccessStatsDTO getStats(AccessTarget type, Long id) {
+        AccessStats stored = accessStatsRepository.findByTargetTypeAndTargetId(type, id).orElse(null);
+        HyperLogLog visitors = HyperLogLog.fromBytes(stored != null ? stored.getVisitorSketch() : null);
+        long hits = stored != null ? stored.getHits() : 0;
+        LocalDateTime lastAccessedAt = stored != null ? stored.getLastAccessedAt() : null;
+
+        Accumulator accumulator = pending.get(new Target(type, id));
+        if (accumulator != null) {
+            hits += accumulator.hits.sum();
+            visitors.merge(accumulator.visitors);
+            lastAccessedAt = latest(lastAccessedAt, accumulator.lastAccessed.get());
+        }
+        return new AccessStatsDTO(type, id, hits, visitors.estimate(), lastAccessedAt);
+    }
+
+    @Scheduled(fixedDelayString = "${access-counters.flush-interval:PT5S}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Drained> batch = drain();
+            if (batch.isEmpty()) {
+                return;
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            // same order on every instance, so concurrent flushes cannot deadlock on the rows
+            batch.sort(Comparator.comparing((Drained drained) -> drained.target().type())
+                .thenComparing(drained -> drained.target().id()));
+            for (int from = 0; from < batch.size(); from += batchSize) {
+                List<Drained> chunk = batch.subList(from, Math.min(from + batchSize, batch.size()));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> write(chunk));
+                    chunk.forEach(drained -> meterRegistry.counter("fileflow.access.flushed",
+                        "kind", drained.target().type().name().toLowerCase()).increment());
+                } catch (Exception e) {
+                    // keep them for the next flush
+                    log.warn("Could not flush {} access counts: {}", chunk.size(), e.getMessage());
+                    chunk.forEach(drained -> record(drained.target(), drained.hits(), drained.lastAccessed(),
+                        null, drained.visitors()));
+                }
+            }
+            sample.stop(meterRegistry.timer("fileflow.access.flush"));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void record(Target target, long hits, long at, String visitor, HyperLogLog visitors) {
+        while (true) {
+            Accumulator accumulator = pending.computeIfAbsent(target, key -> new Accumulator());
+            accumulator.add(hits, at, visitor, visitors);
+            if (!accumulator.retired) {
+                return;
+            }
+            // taken by a flush meanwhile: the hits it did not drain go to the next accumulator,
+            // the time and visitor again since they may have been read before they were added
+            hits = accumulator.hits.sumThenReset();
+        }
+    }
+
+    private List<Drained> drain() {
+        List<Drained> batch = new ArrayList<>();
+        for (Map.Entry<Target, Accumulator> entry : pending.entrySet()) {
+            Accumulator accumulator = entry.getValue();
+            pending.remove(entry.getKey(), accumulator);
+            accumulator.retired = true;
+            batch.add(new Drained(entry.getKey(), accumulator.hits.sumThenReset(),
+                accumulator.lastAccessed.get(), accumulator.visitors));
+        }
+        return batch;
+    }
+
+    private void write(List<Drained> chunk) {
+        List<SqlParameterSource> shareCounts = new ArrayList<>();
+        Map<AccessTarget, List<Drained>> byType = new HashMap<>();
+        for (Drained drained : chunk) {
+            if (drained.target().type() == AccessTarget.SHARE && drained.hits() > 0) {
+                shareCounts.add(new MapSqlParameterSource()
+                    .addValue("id", drained.target().id())
+                    .addValue("hits", (int) Math.min(drained.hits(), Integer.MAX_VALUE)));
+            }
+            byType.computeIfAbsent(drained.target().type(), type -> new ArrayList<>()).add(drained);
+        }
+        if (!shareCounts.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_SHARE_ACCESS_COUNT, shareCounts.toArray(SqlParameterSource[]::new));
+        }
+        byType.forEach(this::writeStats);
+    }
+
+    private void writeStats(AccessTarget type, List<Drained> drained) {
+        Map<Long, Stored> stored = new HashMap<>();
+        jdbcTemplate.query(LOCK_STATS, new MapSqlParameterSource()
+                .addValue("type", type.name())
+                .addValue("ids", drained.stream().map(d -> d.target().id()).toList()),
+            rs -> {
+                stored.put(rs.getLong("target_id"), new Stored(
+                    rs.getObject("last_accessed_at", LocalDateTime.class), rs.getBytes("visitor_sketch")));
+            });
+
+        List<SqlParameterSource> updates = new ArrayList<>();
+        List<SqlParameterSource> inserts = new ArrayList<>();
+        for (Drained d : drained) {
+            Stored current = stored.get(d.target().id());
+            HyperLogLog visitors = HyperLogLog.fromBytes(current != null ? current.visitorSketch() : null);
+            visitors.merge(d.visitors());
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("type", type.name())
+                .addValue("id", d.target().id())
+                .addValue("hits", d.hits())
+                .addValue("uniqueVisitors", visitors.estimate())
+                .addValue("lastAccessedAt", latest(current != null ? current.lastAccessedAt() : null, d.lastAccessed()))
+                .addValue("visitorSketch", visitors.toBytes());
+            (current != null ? updates : inserts).add(params);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_STATS, updates.toArray(SqlParameterSource[]::new));
+        }
+        if (!inserts.isEmpty()) {
+            // another instance inserting the same row first fails the batch, the next flush updates it
+            jdbcTemplate.batchUpdate(INSERT_STATS, inserts.toArray(SqlParameterSource[]::new));
+        }
+    }
+
+    private static LocalDateTime latest(LocalDateTime stored, long epochMillis) {
+        if (epochMillis == 0) {
+            return stored;
+        }
+        LocalDateTime at = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+        return stored == null || at.isAfter(stored) ? at : stored;
+    }
+
+    private record Target(AccessTarget type, Long id) {
+    }
+
+    private record Drained(Target target, long hits, long lastAccessed, HyperLogLog visitors) {
+    }
+
+    private record Stored(LocalDateTime lastAccessedAt, byte[] visitorSketch) {
+    }
+
+    private static class Accumulator {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAccumulator lastAccessed = new LongAccumulator(Math::max, 0);
+        private final HyperLogLog visitors = new HyperLogLog();
+        private volatile boolean retired;
+
+        void add(long count, long at, String visitor, HyperLogLog sketch) {
+            if (count > 0) {
+                hits.add(count);
+            }
+            lastAccessed.accumulate(at);
+            if (visitor != null) {
+                visitors.add(visitor);
+            }
+            if (sketch != null) {
+                visitors.merge(sketch);
+            }
+        }
+    }
+}
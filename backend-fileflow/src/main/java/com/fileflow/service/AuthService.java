@@ -16,6 +16,7 @@ import com.fileflow.repository.UserAuthRepository;
 import com.fileflow.security.JwtUtil;
 import com.fileflow.utils.CookieUtils;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -26,6 +27,7 @@ import java.util.Map;
 import java.util.Optional;
 
 @Service
+@Slf4j
 public class AuthService {
     // Inject dependecies
     private final UserMapper userMapper;
@@ -83,7 +85,7 @@ public class AuthService {
 
     // Method to login
     public ResponseEntity<?> login(LoginRequest request, HttpServletResponse response) {
-        System.out.println(request.getEmail());
+        log.debug("Login attempt for {}", request.getEmail());
         Optional<User> optionalUser = userRepository.findByEmail(request.getEmail());
 
         if (optionalUser.isEmpty()) {
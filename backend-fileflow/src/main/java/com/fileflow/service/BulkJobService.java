@@ -0,0 +1,330 @@
+package com.fileflow.service;
+
+import com.fileflow.dto.BulkJobDTO;
+import com.fileflow.entity.BulkJob;
+import com.fileflow.entity.User;
+import com.fileflow.enums.BulkJobStatus;
+import com.fileflow.enums.BulkJobType;
+import com.fileflow.repository.BulkJobRepository;
+import com.fileflow.repository.UserRepository;
+import com.fileflow.utils.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk move, copy and delete as background jobs.
+ *
+ * Submitting stores the job and returns at once; a bulkJobExecutor worker then runs the
+ * items in chunks of bulk-jobs.chunk-size. Folder moves only change rows, so a chunk of
+ * them runs in one transaction together with the job's progress, and a chunk that fails
+ * is retried one item at a time so a single bad item is counted as failed without failing
+ * its neighbours. The other operations move, copy or delete files on disk, which a
+ * rollback cannot undo, so they run one item per transaction from the start. After every
+ * chunk the job is pushed to its owner on /user/queue/jobs.
+ *
+ * Cancellation is a flag checked between chunks. Jobs still QUEUED or RUNNING when the
+ * application stopped are resumed from their first unprocessed item on the next start.
+ */
+@Service
+@Slf4j
+public class BulkJobService {
+
+    public static final String JOBS_QUEUE = "/queue/jobs";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final BulkJobRepository bulkJobRepository;
+    private final UserRepository userRepository;
+    private final FileService fileService;
+    private final FolderService folderService;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final TaskExecutor bulkJobExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // jobs with a worker in this instance, so a resume never runs a job twice
+    private final Set<Long> activeJobs = ConcurrentHashMap.newKeySet();
+
+    @Value("${bulk-jobs.chunk-size:50}")
+    private int chunkSize;
+
+    @Value("${bulk-jobs.max-items:100000}")
+    private int maxItems;
+
+    @Value("${bulk-jobs.retention:P7D}")
+    private Duration retention;
+
+    public BulkJobService(BulkJobRepository bulkJobRepository,
+                          UserRepository userRepository,
+                          FileService fileService,
+                          FolderService folderService,
+                          SimpMessageSendingOperations messagingTemplate,
+                          @Qualifier("bulkJobExecutor") TaskExecutor bulkJobExecutor,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.bulkJobRepository = bulkJobRepository;
+        this.userRepository = userRepository;
+        this.fileService = fileService;
+        this.folderService = folderService;
+        this.messagingTemplate = messagingTemplate;
+        this.bulkJobExecutor = bulkJobExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Store the job and hand it to a worker once committed
+     */
+    @Transactional
+    public BulkJobDTO submit(Long userId, BulkJobType type, List<Long> itemIds, Long destinationId) {
+        if (type == null) {
+            throw new RuntimeException("Job type is required");
+        }
+        if (itemIds == null || itemIds.isEmpty()) {
+            throw new RuntimeException("No items specified for bulk operation");
+        }
+        if (itemIds.size() > maxItems) {
+            throw new RuntimeException("At most " + maxItems + " items per bulk operation");
+        }
+
+        BulkJob job = bulkJobRepository.save(BulkJob.builder()
+            .userId(userId)
+            .type(type)
+            .status(BulkJobStatus.QUEUED)
+            .itemIds(itemIds.stream().map(String::valueOf).collect(Collectors.joining(",")))
+            .destinationId(type == BulkJobType.DELETE_FOLDERS ? null : destinationId)
+            .totalItems(itemIds.size())
+            .createdAt(LocalDateTime.now())
+            .build());
+
+        meterRegistry.counter("fileflow.bulk.jobs.submitted", "operation", type.name()).increment();
+        Long jobId = job.getId();
+        TransactionUtils.afterCommit(() -> schedule(jobId));
+        return convertToDTO(job);
+    }
+
+    @Transactional(readOnly = true)
+    public BulkJobDTO getJob(Long jobId, Long userId) {
+        return bulkJobRepository.findByIdAndUserId(jobId, userId)
+            .map(this::convertToDTO)
+            .orElseThrow(() -> new RuntimeException("Job not found"));
+    }
+
+    @Transactional(readOnly = true)
+    public List<BulkJobDTO> getJobs(Long userId, int limit) {
+        return bulkJobRepository.findByUserIdOrderByIdDesc(userId, PageRequest.of(0, Math.max(1, Math.min(limit, 100))))
+            .stream()
+            .map(this::convertToDTO)
+            .toList();
+    }
+
+    /**
+     * Ask the worker to stop at the next chunk boundary. Items already processed stay done.
+     */
+    @Transactional
+    public BulkJobDTO cancel(Long jobId, Long userId) {
+        BulkJob job = bulkJobRepository.findByIdAndUserId(jobId, userId)
+            .orElseThrow(() -> new RuntimeException("Job not found"));
+        if (job.getStatus().isFinished()) {
+            throw new RuntimeException("Job already " + job.getStatus().name().toLowerCase());
+        }
+        bulkJobRepository.requestCancel(jobId);
+        job.setCancelRequested(true);
+        return convertToDTO(job);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        List<BulkJob> unfinished = bulkJobRepository.findByStatusInOrderByIdAsc(
+            List.of(BulkJobStatus.QUEUED, BulkJobStatus.RUNNING));
+        if (!unfinished.isEmpty()) {
+            log.info("Resuming {} unfinished bulk job(s)", unfinished.size());
+            unfinished.forEach(job -> schedule(job.getId()));
+        }
+    }
+
+    @Scheduled(cron = "${bulk-jobs.cleanup-cron:0 45 * * * *}")
+    @Transactional
+    public void purgeFinishedJobs() {
+        int purged = bulkJobRepository.deleteFinishedBefore(LocalDateTime.now().minus(retention));
+        if (purged > 0) {
+            log.info("Purged {} finished bulk jobs", purged);
+        }
+    }
+
+    private void schedule(Long jobId) {
+        bulkJobExecutor.execute(() -> run(jobId));
+    }
+
+    private void run(Long jobId) {
+        if (!activeJobs.add(jobId)) {
+            return;
+        }
+        try {
+            BulkJob job = bulkJobRepository.findById(jobId).orElse(null);
+            if (job == null || job.getStatus().isFinished()) {
+                return;
+            }
+            String email = userRepository.findById(job.getUserId()).map(User::getEmail).orElse(null);
+            List<Long> items = job.getItemIdList();
+
+            job = update(jobId, running -> {
+                running.setStatus(BulkJobStatus.RUNNING);
+                if (running.getStartedAt() == null) {
+                    running.setStartedAt(LocalDateTime.now());
+                }
+            });
+            publish(email, job);
+
+            while (job.getProcessedItems() < items.size()) {
+                if (bulkJobRepository.isCancelRequested(jobId)) {
+                    publish(email, finish(jobId, BulkJobStatus.CANCELLED));
+                    return;
+                }
+                int from = job.getProcessedItems();
+                List<Long> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+                job = processChunk(job, chunk);
+                publish(email, job);
+            }
+
+            boolean allFailed = job.getTotalItems() > 0 && job.getFailedItems() == job.getTotalItems();
+            publish(email, finish(jobId, allFailed ? BulkJobStatus.FAILED : BulkJobStatus.COMPLETED));
+        } catch (Exception e) {
+            log.error("Bulk job {} failed", jobId, e);
+            BulkJob failed = update(jobId, job -> job.setLastError(truncate(e.getMessage())));
+            publish(userRepository.findById(failed.getUserId()).map(User::getEmail).orElse(null),
+                finish(jobId, BulkJobStatus.FAILED));
+        } finally {
+            activeJobs.remove(jobId);
+        }
+    }
+
+    private BulkJob processChunk(BulkJob job, List<Long> chunk) {
+        if (!touchesStorage(job.getType())) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    int failed = apply(job, chunk);
+                    return advance(job.getId(), chunk.size(), failed, null);
+                });
+            } catch (RuntimeException chunkFailure) {
+                log.debug("Bulk job {} chunk failed, retrying item by item: {}", job.getId(), chunkFailure.getMessage());
+            }
+        }
+
+        BulkJob current = job;
+        for (Long itemId : chunk) {
+            try {
+                current = transactionTemplate.execute(status -> {
+                    int failed = apply(job, List.of(itemId));
+                    return advance(job.getId(), 1, failed, null);
+                });
+            } catch (RuntimeException e) {
+                current = advance(job.getId(), 1, 1, "Item " + itemId + ": " + e.getMessage());
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Whether the operation changes files on disk, which stay changed when its transaction
+     * rolls back: a chunk of them failing on one item would leave the others moved or
+     * copied for the item-by-item retry to do again
+     */
+    private static boolean touchesStorage(BulkJobType type) {
+        return type != BulkJobType.MOVE_FOLDERS;
+    }
+
+    /**
+     * Runs the operation on some items, returning how many of them failed
+     */
+    private int apply(BulkJob job, List<Long> itemIds) {
+        Long userId = job.getUserId();
+        Long destinationId = job.getDestinationId();
+        switch (job.getType()) {
+            case MOVE_FILES -> fileService.bulkMoveFiles(itemIds, destinationId, userId);
+            case COPY_FILES -> fileService.bulkCopyFiles(itemIds, destinationId, userId);
+            case MOVE_FOLDERS -> folderService.bulkMoveFolder(itemIds, destinationId, userId);
+            case COPY_FOLDERS -> folderService.bulkCopyFolder(itemIds, destinationId, userId);
+            case DELETE_FOLDERS -> {
+                return itemIds.size() - folderService.bulkDeleteFolder(itemIds, userId);
+            }
+        }
+        return 0;
+    }
+
+    private BulkJob advance(Long jobId, int processed, int failed, String error) {
+        return update(jobId, job -> {
+            job.setProcessedItems(job.getProcessedItems() + processed);
+            job.setFailedItems(job.getFailedItems() + failed);
+            if (error != null) {
+                job.setLastError(truncate(error));
+            }
+        });
+    }
+
+    private BulkJob finish(Long jobId, BulkJobStatus status) {
+        BulkJob job = update(jobId, finished -> {
+            finished.setStatus(status);
+            finished.setFinishedAt(LocalDateTime.now());
+        });
+        meterRegistry.counter("fileflow.bulk.jobs.finished", "operation", job.getType().name(), "status", status.name())
+            .increment();
+        log.info("Bulk job {} {}: {}/{} items processed, {} failed", jobId, status, job.getProcessedItems(),
+            job.getTotalItems(), job.getFailedItems());
+        return job;
+    }
+
+    private BulkJob update(Long jobId, Consumer<BulkJob> change) {
+        return transactionTemplate.execute(status -> {
+            BulkJob job = bulkJobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Job not found"));
+            change.accept(job);
+            job.setUpdatedAt(LocalDateTime.now());
+            return bulkJobRepository.save(job);
+        });
+    }
+
+    private void publish(String email, BulkJob job) {
+        if (email == null) {
+            return;
+        }
+        try {
+            messagingTemplate.convertAndSendToUser(email, JOBS_QUEUE, convertToDTO(job));
+        } catch (Exception e) {
+            log.warn("Failed to push progress of bulk job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private BulkJobDTO convertToDTO(BulkJob job) {
+        return new BulkJobDTO(job.getId(), job.getType(), job.getStatus(), job.getDestinationId(),
+            job.getTotalItems(), job.getProcessedItems(), job.getFailedItems(), job.getLastError(),
+            job.isCancelRequested(), job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt());
+    }
+}
@@ -0,0 +1,258 @@
+package com.fileflow.service;
+
+import com.fileflow.dto.ChangeEventDTO;
+import com.fileflow.dto.ChangeSetDTO;
+import com.fileflow.entity.ChangeLogEntry;
+import com.fileflow.entity.ChangeSequence;
+import com.fileflow.enums.ChangeType;
+import com.fileflow.enums.ResourceType;
+import com.fileflow.enums.StreamEventType;
+import com.fileflow.event.ResourceChangeEvent;
+import com.fileflow.event.UserStreamEvent;
+import com.fileflow.repository.ChangeLogRepository;
+import com.fileflow.repository.ChangeSequenceRepository;
+import com.fileflow.repository.FolderShareRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Per-user change log behind the delta sync API.
+ *
+ * Entries are written by a synchronous listener, so they commit or roll back with
+ * the mutation that produced them. A folder DELETED entry implies its whole subtree.
+ * Once committed, each entry is published as a UserStreamEvent for the SSE stream.
+ *
+ * Seqs come from ChangeSequence and are assigned just before commit, to all the entries
+ * of the transaction at once. Raising a user's counter locks their row until commit, so
+ * seqs commit in order and a client that has seen seq n can never get an entry below n
+ * later. Each counter is raised once, by its user's entry count, in user id order, so
+ * transactions sharing recipients lock them in the same order and cannot deadlock,
+ * however many changes each one made.
+ *
+ * Compaction keeps the log small: entries superseded by a newer entry for the same
+ * resource are dropped after compact-after, and everything older than retention is
+ * purged. A cursor at or before the user's last purged seq gets resyncRequired.
+ */
+@Service
+@Slf4j
+public class ChangeLogService {
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ChangeSequenceRepository changeSequenceRepository;
+    private final FolderShareRepository folderShareRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate newTransaction;
+
+    @Value("${sync.change-log.compact-after:PT1H}")
+    private Duration compactAfter;
+
+    @Value("${sync.change-log.retention:P30D}")
+    private Duration retention;
+
+    @Value("${sync.change-log.max-page-size:1000}")
+    private int maxPageSize;
+
+    public ChangeLogService(ChangeLogRepository changeLogRepository,
+                            ChangeSequenceRepository changeSequenceRepository,
+                            FolderShareRepository folderShareRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager) {
+        this.changeLogRepository = changeLogRepository;
+        this.changeSequenceRepository = changeSequenceRepository;
+        this.folderShareRepository = folderShareRepository;
+        this.eventPublisher = eventPublisher;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener
+    public void onResourceChange(ResourceChangeEvent event) {
+        List<ChangeLogEntry> entries = new ArrayList<>();
+        for (Long userId : resolveRecipients(event)) {
+            entries.add(ChangeLogEntry.builder()
+                .userId(userId)
+                .changeType(event.getType())
+                .resourceType(event.getResourceType())
+                .resourceId(event.getResourceId())
+                .folderId(event.getFolderId())
+                .previousFolderId(event.getPreviousFolderId())
+                .name(event.getName())
+                .size(event.getSize())
+                .createdAt(event.getOccurredAt())
+                .build());
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingEntries().entries.addAll(entries);
+        } else {
+            publish(assignSeqsAndSave(entries));
+        }
+    }
+
+    /**
+     * Changes visible to a user after the given cursor, oldest first.
+     * Without a cursor the client must list everything; the returned cursor is taken
+     * before that listing so nothing committed in between is missed.
+     */
+    @Transactional(readOnly = true)
+    public ChangeSetDTO getChangesSince(Long userId, Long cursor, int limit) {
+        ChangeSequence sequence = changeSequenceRepository.findById(userId)
+            .orElseGet(() -> new ChangeSequence(userId, 0L, 0L));
+        // no cursor, entries after it purged, or a cursor this log never handed out
+        if (cursor == null || cursor <= 0 || cursor < sequence.getPurgedSeq() || cursor > sequence.getLastSeq()) {
+            return new ChangeSetDTO(new ArrayList<>(), sequence.getLastSeq(), false, true);
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        List<ChangeLogEntry> entries = changeLogRepository
+            .findByUserIdAndSeqGreaterThanOrderBySeqAsc(userId, cursor, PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = entries.size() > pageSize;
+        if (hasMore) {
+            entries = entries.subList(0, pageSize);
+        }
+
+        List<ChangeEventDTO> changes = entries.stream().map(this::convertToDTO).toList();
+        Long nextCursor = entries.isEmpty() ? cursor : entries.get(entries.size() - 1).getSeq();
+        return new ChangeSetDTO(changes, nextCursor, hasMore, false);
+    }
+
+    @Scheduled(cron = "${sync.change-log.compaction-cron:0 15 * * * *}")
+    @Transactional
+    public void compact() {
+        LocalDateTime now = LocalDateTime.now();
+        int superseded = changeLogRepository.deleteSupersededBefore(now.minus(compactAfter));
+        changeSequenceRepository.markPurgedBefore(now.minus(retention));
+        int expired = changeLogRepository.deleteAllBefore(now.minus(retention));
+        if (superseded > 0 || expired > 0) {
+            log.info("Change log compacted: {} superseded and {} expired entries removed", superseded, expired);
+        }
+    }
+
+    /**
+     * The entries of the current transaction, saved just before it commits
+     */
+    private PendingEntries pendingEntries() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingEntries pending) {
+                return pending;
+            }
+        }
+        PendingEntries pending = new PendingEntries();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    /**
+     * Numbers the entries per user, in the order they were recorded, and saves them
+     */
+    private List<ChangeLogEntry> assignSeqsAndSave(List<ChangeLogEntry> entries) {
+        Map<Long, List<ChangeLogEntry>> byUser = new TreeMap<>();
+        entries.forEach(entry -> byUser.computeIfAbsent(entry.getUserId(), userId -> new ArrayList<>()).add(entry));
+        byUser.forEach((userId, userEntries) -> {
+            long seq = reserveSeqs(userId, userEntries.size()) - userEntries.size();
+            for (ChangeLogEntry entry : userEntries) {
+                entry.setSeq(++seq);
+            }
+        });
+        return changeLogRepository.saveAll(entries);
+    }
+
+    /**
+     * Raises the user's counter by count and returns the last reserved seq, held by this
+     * transaction until it commits. The counter row is created on the user's first change,
+     * in its own transaction so that a concurrent first change only finds it there.
+     */
+    private long reserveSeqs(Long userId, long count) {
+        if (changeSequenceRepository.increment(userId, count) == 0) {
+            try {
+                newTransaction.executeWithoutResult(status ->
+                    changeSequenceRepository.save(new ChangeSequence(userId, 0L, 0L)));
+            } catch (DataIntegrityViolationException e) {
+                // created by the other one
+            }
+            changeSequenceRepository.increment(userId, count);
+        }
+        return changeSequenceRepository.findLastSeq(userId);
+    }
+
+    private void publish(List<ChangeLogEntry> saved) {
+        saved.forEach(entry -> eventPublisher.publishEvent(
+            new UserStreamEvent(entry.getUserId(), StreamEventType.CHANGE, entry.getSeq(), convertToDTO(entry))));
+    }
+
+    /**
+     * The owner plus every user with an accepted share on a folder the change touches
+     */
+    private Set<Long> resolveRecipients(ResourceChangeEvent event) {
+        if (event.isShareScoped()) {
+            return Set.of(event.getAudienceUserId());
+        }
+
+        Set<Long> recipients = new LinkedHashSet<>();
+        recipients.add(event.getOwnerId());
+
+        Set<Long> folderIds = new HashSet<>();
+        if (event.getFolderId() != null) folderIds.add(event.getFolderId());
+        if (event.getPreviousFolderId() != null) folderIds.add(event.getPreviousFolderId());
+        if (event.getResourceType() == ResourceType.FOLDER) folderIds.add(event.getResourceId());
+
+        if (!folderIds.isEmpty()) {
+            recipients.addAll(folderShareRepository.findAcceptedTargetUserIdsForFolders(folderIds));
+        }
+        return recipients;
+    }
+
+    /**
+     * Change log entries recorded by one transaction, numbered and saved in beforeCommit
+     * and pushed to the streams once it has committed
+     */
+    private class PendingEntries implements TransactionSynchronization {
+
+        private final List<ChangeLogEntry> entries = new ArrayList<>();
+        private final List<ChangeLogEntry> saved = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!entries.isEmpty()) {
+                saved.addAll(assignSeqsAndSave(entries));
+                entries.clear();
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            publish(saved);
+        }
+    }
+
+    private ChangeEventDTO convertToDTO(ChangeLogEntry entry) {
+        boolean deleted = entry.getChangeType() == ChangeType.DELETED;
+        return new ChangeEventDTO(
+            entry.getSeq(),
+            entry.getChangeType(),
+            entry.getResourceType(),
+            entry.getResourceId(),
+            entry.getFolderId(),
+            entry.getPreviousFolderId(),
+            deleted ? null : entry.getName(),
+            deleted ? null : entry.getSize(),
+            entry.getCreatedAt()
+        );
+    }
+}
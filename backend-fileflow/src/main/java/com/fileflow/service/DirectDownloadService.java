@@ -0,0 +1,194 @@
+package com.fileflow.service;
+
+import com.fileflow.dto.DirectDownloadUrlDTO;
+import com.fileflow.entity.File;
+import com.fileflow.enums.ResourceType;
+import com.fileflow.enums.UserPlan;
+import com.fileflow.event.ResourceChangeEvent;
+import com.fileflow.exception.ForbiddenException;
+import com.fileflow.repository.FileRepository;
+import com.fileflow.utils.HmacUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Short-lived signed URLs for a file's content, for img/video tags, players and plain
+ * links that cannot send the JWT. The URL carries its expiry and an HMAC of the file id
+ * and expiry; serving it takes that check and a lookup in an in-memory metadata cache,
+ * no token parsing, user lookup or query.
+ *
+ * Expiries are rounded up to direct-downloads.expiry-granularity, so URLs issued for the
+ * same file close together are identical and browsers reuse what they cached. Metadata is
+ * cached for direct-downloads.cache-ttl and dropped once a change of the file commits;
+ * other instances see the change within cache-ttl. A URL cannot be revoked before it
+ * expires, other than by changing direct-downloads.signing-key.
+ */
+@Service
+public class DirectDownloadService {
+
+    public static final String PATH = "/api/direct/";
+
+    private final FileRepository fileRepository;
+    private final MeterRegistry meterRegistry;
+    private final String baseUrl;
+    private final byte[] signingKey;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final long granularitySeconds;
+    private final Duration cacheTtl;
+    private final Duration negativeTtl;
+    private final Map<Long, CachedFile> cache;
+
+    public DirectDownloadService(FileRepository fileRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.base-url:http://localhost:8088}") String baseUrl,
+                                 @Value("${direct-downloads.signing-key:${jwt.secret}}") String signingKey,
+                                 @Value("${direct-downloads.ttl:PT5M}") Duration defaultTtl,
+                                 @Value("${direct-downloads.max-ttl:PT1H}") Duration maxTtl,
+                                 @Value("${direct-downloads.expiry-granularity:PT1M}") Duration granularity,
+                                 @Value("${direct-downloads.cache-ttl:PT1M}") Duration cacheTtl,
+                                 @Value("${direct-downloads.negative-ttl:PT30S}") Duration negativeTtl,
+                                 @Value("${direct-downloads.cache-size:10000}") int cacheSize) {
+        this.fileRepository = fileRepository;
+        this.meterRegistry = meterRegistry;
+        this.baseUrl = baseUrl;
+        this.signingKey = signingKey.getBytes(StandardCharsets.UTF_8);
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.granularitySeconds = Math.max(1, granularity.getSeconds());
+        this.cacheTtl = cacheTtl;
+        this.negativeTtl = negativeTtl;
+        // least recently used first, the coldest files go when the cache is full
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedFile> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * A signed URL for one of the user's files, valid for expiresInSeconds (default
+     * direct-downloads.ttl, at most max-ttl)
+     */
+    public DirectDownloadUrlDTO issue(Long fileId, Long userId, Long expiresInSeconds) {
+        File file = fileRepository.findByIdAndUserId(fileId, userId)
+            .orElseThrow(() -> new RuntimeException("File not found"));
+        Duration ttl = expiresInSeconds != null && expiresInSeconds > 0 ? Duration.ofSeconds(expiresInSeconds) : defaultTtl;
+        if (ttl.compareTo(maxTtl) > 0) {
+            ttl = maxTtl;
+        }
+        long expires = Instant.now().plus(ttl).getEpochSecond();
+        expires = (expires + granularitySeconds - 1) / granularitySeconds * granularitySeconds;
+
+        // the first download is likely to follow right away
+        DirectFile directFile = DirectFile.of(file);
+        synchronized (cache) {
+            cache.put(fileId, new CachedFile(directFile));
+        }
+        meterRegistry.counter("fileflow.direct.download", "outcome", "issued").increment();
+        String url = baseUrl + PATH + fileId + "?expires=" + expires + "&signature=" + HmacUtils.sign(signingKey, payload(fileId, expires));
+        return new DirectDownloadUrlDTO(url, LocalDateTime.ofInstant(Instant.ofEpochSecond(expires), ZoneId.systemDefault()));
+    }
+
+    /**
+     * The file of a signed URL: ForbiddenException when the signature is wrong or expired,
+     * RuntimeException when the file is gone
+     */
+    public DirectFile resolve(Long fileId, Long expires, String signature) throws ForbiddenException {
+        if (expires == null || signature == null) {
+            meterRegistry.counter("fileflow.direct.download", "outcome", "rejected").increment();
+            throw new ForbiddenException("Invalid download link");
+        }
+        if (expires < Instant.now().getEpochSecond()) {
+            meterRegistry.counter("fileflow.direct.download", "outcome", "expired").increment();
+            throw new ForbiddenException("Download link expired");
+        }
+        if (!HmacUtils.verify(signingKey, payload(fileId, expires), signature)) {
+            meterRegistry.counter("fileflow.direct.download", "outcome", "rejected").increment();
+            throw new ForbiddenException("Invalid download link");
+        }
+
+        CachedFile cached;
+        synchronized (cache) {
+            cached = cache.get(fileId);
+        }
+        DirectFile file;
+        if (cached != null && !cached.isStale(cached.file != null ? cacheTtl : negativeTtl)) {
+            file = cached.file;
+            meterRegistry.counter("fileflow.direct.download", "outcome", "hit").increment();
+        } else {
+            file = fileRepository.findById(fileId).map(DirectFile::of).orElse(null);
+            synchronized (cache) {
+                cache.put(fileId, new CachedFile(file));
+            }
+            meterRegistry.counter("fileflow.direct.download", "outcome", "miss").increment();
+        }
+        if (file == null) {
+            throw new RuntimeException("File not found");
+        }
+        return file;
+    }
+
+    public Resource content(DirectFile file) {
+        FileSystemResource resource = new FileSystemResource(file.filePath());
+        if (!resource.exists()) {
+            throw new RuntimeException("File not found");
+        }
+        return resource;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onResourceChange(ResourceChangeEvent event) {
+        if (event.getResourceType() != ResourceType.FILE) {
+            return;
+        }
+        synchronized (cache) {
+            cache.remove(event.getResourceId());
+        }
+    }
+
+    private static String payload(Long fileId, long expires) {
+        return "direct:" + fileId + ":" + expires;
+    }
+
+    /**
+     * What serving a file needs, copied out of the entity so it can be cached. The owner
+     * is kept so the download counts against their bandwidth limit.
+     */
+    public record DirectFile(Long fileId, Long ownerId, UserPlan ownerPlan, String filePath, String fileName,
+                             String contentType, Long fileSize) {
+
+        static DirectFile of(File file) {
+            return new DirectFile(file.getId(), file.getUser().getId(), file.getUser().getPlan(), file.getFilePath(),
+                file.getOriginalFileName(), file.getContentType(), file.getFileSize());
+        }
+    }
+
+    private static class CachedFile {
+
+        private final DirectFile file; // null: no such file
+        private final long loadedAt = System.currentTimeMillis();
+
+        CachedFile(DirectFile file) {
+            this.file = file;
+        }
+
+        boolean isStale(Duration ttl) {
+            return System.currentTimeMillis() - loadedAt > ttl.toMillis();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.fileflow.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+/**
+ * Sends emails on the emailExecutor workers so the request that triggered them does
+ * not wait on the Gmail API. Failures are logged and counted, the caller is not told.
+ */
+@Service
+@Slf4j
+public class EmailDispatcher {
+
+    private final EmailService emailService;
+    private final TaskExecutor emailExecutor;
+    private final MeterRegistry meterRegistry;
+
+    public EmailDispatcher(EmailService emailService,
+                           @Qualifier("emailExecutor") TaskExecutor emailExecutor,
+                           MeterRegistry meterRegistry) {
+        this.emailService = emailService;
+        this.emailExecutor = emailExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void dispatch(String toEmail, String subject, String body) {
+        emailExecutor.execute(() -> {
+            String outcome = "sent";
+            try {
+                ResponseEntity<?> response = emailService.sendEmail(toEmail, subject, body);
+                if (!response.getStatusCode().is2xxSuccessful()) {
+                    outcome = "failed";
+                    log.warn("Email '{}' to {} was not sent: {}", subject, toEmail, response.getBody());
+                }
+            } catch (Exception e) {
+                outcome = "failed";
+                log.warn("Email '{}' to {} was not sent: {}", subject, toEmail, e.getMessage());
+            }
+            meterRegistry.counter("fileflow.email.dispatch", "outcome", outcome).increment();
+        });
+    }
+}
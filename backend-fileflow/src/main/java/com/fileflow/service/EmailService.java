@@ -15,6 +15,7 @@ import com.google.api.client.util.store.FileDataStoreFactory;
 import com.google.api.services.gmail.Gmail;
 import com.google.api.services.gmail.GmailScopes;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Base64;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -35,7 +36,7 @@ import java.util.Properties;
 import static javax.mail.Message.RecipientType.TO;
 
 @AllArgsConstructor
-
+@Slf4j
 @Service
 public class EmailService {
     /**
@@ -97,9 +98,9 @@ public class EmailService {
         if (credential.getExpiresInSeconds() != null && credential.getExpiresInSeconds() <= 60) {
             boolean refreshed = credential.refreshToken();
             if (refreshed) {
-                System.out.println("Access token rafraîchi automatiquement.");
+                log.info("Access token rafraîchi automatiquement.");
             } else {
-                System.out.println("⚠Échec du rafraîchissement du token. Une réauthentification sera nécessaire.");
+                log.warn("Échec du rafraîchissement du token. Une réauthentification sera nécessaire.");
             }
         }
 
@@ -30,14 +30,14 @@ import static com.fileflow.utils.EmailTemplate.loadEmailTemplate;
 public class EmailVerificationService {
 
     private final UserAuthRepository userRepository;
-    private final EmailService emailService;
+    private final EmailDispatcher emailDispatcher;
 
     private final Map<String, CodeData> codeMap = new ConcurrentHashMap<>();
 
 
-    public EmailVerificationService(UserAuthRepository userRepository, EmailService emailService) {
+    public EmailVerificationService(UserAuthRepository userRepository, EmailDispatcher emailDispatcher) {
         this.userRepository = userRepository;
-        this.emailService = emailService;
+        this.emailDispatcher = emailDispatcher;
     }
 
 
@@ -57,8 +57,8 @@ public class EmailVerificationService {
         String body = loadEmailTemplate("verification-code-email.html", vars);
 
 
-        // Envoi du mail avec le code via EmailService
-        emailService.sendEmail(codeRequest.getEmail(), "Code de vérification", body);
+        // Envoi du mail avec le code via EmailDispatcher (en arrière-plan)
+        emailDispatcher.dispatch(codeRequest.getEmail(), "Code de vérification", body);
 
         return ResponseEntity.ok(new ApiResponse<>(true, "Code de vérification envoyé avec succès", null));
     }
@@ -0,0 +1,241 @@
+package com.fileflow.service;
+
+import com.fileflow.dto.ChangeSetDTO;
+import com.fileflow.enums.StreamEventType;
+import com.fileflow.event.UserStreamEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-Sent Events stream of share notifications and file/folder changes.
+ *
+ * Each open stream owns a bounded unicast sink, so an idle connection costs a queue and
+ * a map entry; no thread is held between events. Event ids have the form
+ * "{notificationId}:{changeCursor}" and a reconnecting client sends the last one back
+ * as Last-Event-ID: unacknowledged notifications and change log entries after it are
+ * replayed before live events. A stream whose buffer overflows is closed so the client
+ * reconnects and catches up through the same replay.
+ */
+@Service
+@Slf4j
+public class EventStreamService {
+
+    private final NotificationService notificationService;
+    private final ChangeLogService changeLogService;
+
+    private final Map<Long, Set<Connection>> connections = new ConcurrentHashMap<>();
+
+    @Value("${events.heartbeat-interval:PT25S}")
+    private Duration heartbeatInterval;
+
+    @Value("${events.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${events.max-replay:5000}")
+    private int maxReplay;
+
+    public EventStreamService(NotificationService notificationService, ChangeLogService changeLogService) {
+        this.notificationService = notificationService;
+        this.changeLogService = changeLogService;
+    }
+
+    /**
+     * Open a stream for the user, resuming after lastEventId when it is given
+     */
+    public Flux<ServerSentEvent<Object>> openStream(Long userId, String lastEventId) {
+        return Flux.defer(() -> {
+            // Registered before the replay queries so nothing committed in between is lost;
+            // live events already covered by the replay are filtered out by seq.
+            Connection connection = register(userId);
+            StreamState state = new StreamState();
+            List<ServerSentEvent<Object>> replay;
+            try {
+                replay = buildReplay(userId, lastEventId, state);
+            } catch (RuntimeException e) {
+                unregister(userId, connection);
+                throw e;
+            }
+
+            Flux<ServerSentEvent<Object>> events = Flux.concat(
+                Flux.fromIterable(replay),
+                connection.sink.asFlux().filter(state::isNew).map(state::toLiveServerSentEvent));
+
+            Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(heartbeatInterval)
+                .map(tick -> ServerSentEvent.builder().comment("heartbeat").build());
+
+            return events
+                .publish(shared -> Flux.merge(shared, heartbeats.takeUntilOther(shared.then())))
+                .doFinally(signal -> unregister(userId, connection));
+        });
+    }
+
+    @EventListener
+    public void onUserStreamEvent(UserStreamEvent event) {
+        Set<Connection> userConnections = connections.get(event.getUserId());
+        if (userConnections == null) {
+            return;
+        }
+        for (Connection connection : userConnections) {
+            connection.emit(event);
+        }
+    }
+
+    public int getConnectionCount() {
+        return connections.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private List<ServerSentEvent<Object>> buildReplay(Long userId, String lastEventId, StreamState state) {
+        long[] resume = parseEventId(lastEventId);
+        List<ServerSentEvent<Object>> replay = new ArrayList<>();
+
+        // Without a resume point every unacked notification is sent, like a STOMP subscribe,
+        // and changes start at the current cursor (the client lists its folders anyway)
+        long notificationCursor = resume != null ? resume[0] : 0L;
+        for (Map<String, Object> message : notificationService.getPendingMessages(userId, notificationCursor)) {
+            Long id = ((Number) message.get("notificationId")).longValue();
+            replay.add(state.toServerSentEvent(new UserStreamEvent(userId, StreamEventType.NOTIFICATION, id, message)));
+        }
+
+        Long changeCursor = resume != null ? resume[1] : null;
+        int replayed = 0;
+        while (true) {
+            ChangeSetDTO changeSet = changeLogService.getChangesSince(userId, changeCursor, maxReplay - replayed);
+            if (changeSet.isResyncRequired() && resume != null) {
+                state.advance(StreamEventType.CHANGE, changeSet.getCursor());
+                replay.add(state.event("resync", Map.of("cursor", state.changeSeq)));
+                break;
+            }
+            changeSet.getChanges().forEach(change -> replay.add(state.toServerSentEvent(
+                new UserStreamEvent(userId, StreamEventType.CHANGE, change.getSeq(), change))));
+            replayed += changeSet.getChanges().size();
+            state.advance(StreamEventType.CHANGE, changeSet.getCursor());
+            changeCursor = changeSet.getCursor();
+
+            if (!changeSet.isHasMore()) {
+                break;
+            }
+            if (replayed >= maxReplay) {
+                replay.add(state.event("resync", Map.of("cursor", state.changeSeq)));
+                break;
+            }
+        }
+
+        replay.add(state.event("ready", Map.of("cursor", state.changeSeq)));
+        return replay;
+    }
+
+    private Connection register(Long userId) {
+        Connection connection = new Connection(bufferSize);
+        connections.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet()).add(connection);
+        return connection;
+    }
+
+    private void unregister(Long userId, Connection connection) {
+        connections.computeIfPresent(userId, (key, set) -> {
+            set.remove(connection);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static long[] parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        String[] parts = lastEventId.trim().split(":");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return new long[] { Long.parseLong(parts[0]), Long.parseLong(parts[1]) };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static class Connection {
+
+        private final Sinks.Many<UserStreamEvent> sink;
+
+        Connection(int bufferSize) {
+            this.sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<UserStreamEvent>get(bufferSize).get());
+        }
+
+        synchronized void emit(UserStreamEvent event) {
+            Sinks.EmitResult result = sink.tryEmitNext(event);
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                // The client resumes from the last event it received
+                sink.tryEmitComplete();
+            }
+        }
+    }
+
+    /**
+     * Highest notification id and change seq sent on one stream, which make up the event id.
+     *
+     * Change seqs commit in order but their after-commit events can be published out of
+     * order, so changeSeq only covers seqs that were all sent; a live change above the next
+     * one is sent and remembered until the ones below it arrive. Resuming from the event id
+     * may then repeat it, but never skips one.
+     */
+    private static class StreamState {
+
+        private long notificationSeq;
+        private long changeSeq;
+        private final TreeSet<Long> changesAhead = new TreeSet<>();
+
+        boolean isNew(UserStreamEvent event) {
+            if (event.getType() == StreamEventType.NOTIFICATION) {
+                return event.getSeq() > notificationSeq;
+            }
+            return event.getSeq() > changeSeq && !changesAhead.contains(event.getSeq());
+        }
+
+        /**
+         * Everything up to seq was sent (replayed from the log, which may have gaps)
+         */
+        void advance(StreamEventType type, Long seq) {
+            if (seq == null) {
+                return;
+            }
+            if (type == StreamEventType.NOTIFICATION) {
+                notificationSeq = Math.max(notificationSeq, seq);
+            } else {
+                changeSeq = Math.max(changeSeq, seq);
+                changesAhead.headSet(changeSeq, true).clear();
+            }
+        }
+
+        ServerSentEvent<Object> toLiveServerSentEvent(UserStreamEvent event) {
+            if (event.getType() == StreamEventType.NOTIFICATION) {
+                return toServerSentEvent(event);
+            }
+            changesAhead.add(event.getSeq());
+            while (changesAhead.remove(changeSeq + 1)) {
+                changeSeq++;
+            }
+            return event(event.getType().name().toLowerCase(), event.getPayload());
+        }
+
+        ServerSentEvent<Object> toServerSentEvent(UserStreamEvent event) {
+            advance(event.getType(), event.getSeq());
+            return event(event.getType().name().toLowerCase(), event.getPayload());
+        }
+
+        ServerSentEvent<Object> event(String name, Object data) {
+            return ServerSentEvent.builder(data)
+                .id(notificationSeq + ":" + changeSeq)
+                .event(name)
+                .build();
+        }
+    }
+}
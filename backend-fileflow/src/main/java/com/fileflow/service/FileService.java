@@ -5,20 +5,31 @@ import com.fileflow.dto.FileDTO;
 import com.fileflow.entity.File;
 import com.fileflow.entity.Folder;
 import com.fileflow.entity.User;
+import com.fileflow.enums.ChangeType;
+import com.fileflow.event.ResourceChangeEvent;
 import com.fileflow.exception.ForbiddenException;
 import com.fileflow.repository.FileRepository;
 import com.fileflow.repository.FolderRepository;
 import com.fileflow.repository.UserRepository;
+import com.fileflow.utils.ETagUtils;
+import com.fileflow.utils.RetryOnConflict;
+import com.fileflow.utils.StorageObservations;
+import com.fileflow.utils.UserLocked;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -35,85 +46,101 @@ public class FileService {
     private final UserRepository userRepository;
     private final FolderRepository folderRepository;
     private final FileStorageConfig fileStorageConfig;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
 
     @Value("${file.max-size}")
     private Long maxFileSize;
 
-    public FileDTO uploadFile(MultipartFile file, Long userId, Long folderId) {
-        // Validate file
-        if (file.isEmpty()) {
-            throw new RuntimeException("File is empty");
-        }
-
-        if (file.getSize() > maxFileSize) {
+    /**
+     * Size, quota and folder checks for an upload, before anything is written. The quota
+     * is checked again when the file is registered.
+     *
+     * An upload is checked, written to newStoragePath with writeStoredFile and registered
+     * with registerStoredFile; only that last step takes the user lock and a transaction,
+     * so a slow or large upload does not hold them while its bytes arrive.
+     */
+    @Transactional(readOnly = true)
+    public void checkUploadAllowed(Long userId, Long folderId, long size) {
+        if (size > maxFileSize) {
             throw new RuntimeException("File size exceeds maximum allowed size");
         }
-
-        // Get user
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
-
-        // Check storage quota
-        Long currentStorageUsed = fileRepository.sumFileSizeByUserId(userId);
-        if (currentStorageUsed == null) currentStorageUsed = 0L;
-
-        if (currentStorageUsed + file.getSize() > user.getMaxStorage()) {
+        Long currentStorageUsed = meterRegistry.timer("fileflow.quota.check")
+            .record(() -> fileRepository.sumFileSizeByUserId(userId));
+        if ((currentStorageUsed == null ? 0L : currentStorageUsed) + size > user.getMaxStorage()) {
             throw new RuntimeException("Storage quota exceeded");
         }
+        if (folderId != null && folderRepository.findByIdAndUserId(folderId, userId).isEmpty()) {
+            throw new RuntimeException("Folder not found");
+        }
+    }
 
-        try {
-            // Create user directory if it doesn't exist
-            Path userDir = Paths.get(fileStorageConfig.getUploadDir(), userId.toString());
-            if (!Files.exists(userDir)) {
-                Files.createDirectories(userDir);
-            }
-
-            // Generate unique filename
-            String fileUuid = UUID.randomUUID().toString();
-            String originalFileName = file.getOriginalFilename();
-            String fileExtension = "";
-            if (originalFileName != null && originalFileName.contains(".")) {
-                fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
-            }
-            String fileName = fileUuid + fileExtension;
-
-            // Save file to disk
-            Path filePath = userDir.resolve(fileName);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            // Save metadata to database
-            File fileMetadata = new File();
-            fileMetadata.setFileName(fileName);
-            fileMetadata.setOriginalFileName(originalFileName);
-            fileMetadata.setFilePath(filePath.toString());
-            fileMetadata.setContentType(file.getContentType());
-            fileMetadata.setFileSize(file.getSize());
-            fileMetadata.setFileUuid(fileUuid);
-            fileMetadata.setUser(user);
-
-            // Assign to folder if specified
-            if (folderId != null) {
-                Folder folder = folderRepository.findByIdAndUserId(folderId, userId)
-                    .orElseThrow(() -> new RuntimeException("Folder not found"));
-                fileMetadata.setFolder(folder);
-            }
-
-            File savedFile = fileRepository.save(fileMetadata);
-
-            // Update user storage
-            user.setStorageUsed(currentStorageUsed + file.getSize());
-            userRepository.save(user);
+    /**
+     * Where a new upload of this user is stored: the user directory and a unique name
+     * keeping the original extension
+     */
+    public Path newStoragePath(Long userId, String originalFileName) throws IOException {
+        Path userDir = Paths.get(fileStorageConfig.getUploadDir(), userId.toString());
+        Files.createDirectories(userDir);
+        String fileExtension = "";
+        if (originalFileName != null && originalFileName.contains(".")) {
+            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+        }
+        return userDir.resolve(UUID.randomUUID() + fileExtension);
+    }
 
-            return convertToDTO(savedFile);
+    /**
+     * Writes an upload to a path from newStoragePath, outside any transaction or user lock;
+     * content may be paced at the user's upload rate. Returns the bytes written.
+     */
+    public long writeStoredFile(Path path, InputStream content) throws IOException {
+        return StorageObservations.observe(observationRegistry, "write", path, () -> Files.copy(content, path));
+    }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to store file", e);
+    /**
+     * Records a file already written to newStoragePath, for multipart uploads and those
+     * streamed by the reactive transfer server. The caller deletes the file if this fails.
+     */
+    @Transactional
+    @UserLocked
+    public FileDTO registerStoredFile(Long userId, Long folderId, Path filePath, String originalFileName,
+                                      String contentType, long size) {
+        if (size == 0) {
+            throw new RuntimeException("File is empty");
         }
-    }
+        User user = userRepository.findById(userId)
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        Long currentStorageUsed = meterRegistry.timer("fileflow.quota.check")
+            .record(() -> fileRepository.sumFileSizeByUserId(userId));
+        if (currentStorageUsed == null) currentStorageUsed = 0L;
+        if (currentStorageUsed + size > user.getMaxStorage()) {
+            throw new RuntimeException("Storage quota exceeded");
+        }
+        meterRegistry.counter("fileflow.transfer.bytes", "direction", "in").increment(size);
+
+        String fileName = filePath.getFileName().toString();
+        File fileMetadata = new File();
+        fileMetadata.setFileName(fileName);
+        fileMetadata.setOriginalFileName(originalFileName);
+        fileMetadata.setFilePath(filePath.toString());
+        fileMetadata.setContentType(contentType);
+        fileMetadata.setFileSize(size);
+        fileMetadata.setFileUuid(fileName.contains(".") ? fileName.substring(0, fileName.indexOf('.')) : fileName);
+        fileMetadata.setUser(user);
+        if (folderId != null) {
+            fileMetadata.setFolder(folderRepository.findByIdAndUserId(folderId, userId)
+                .orElseThrow(() -> new RuntimeException("Folder not found")));
+        }
+        File savedFile = fileRepository.save(fileMetadata);
+
+        user.setStorageUsed(currentStorageUsed + size);
+        userRepository.save(user);
 
-    // Backward compatibility method for existing upload functionality
-    public FileDTO uploadFile(MultipartFile file, Long userId) {
-        return uploadFile(file, userId, null);
+        eventPublisher.publishEvent(ResourceChangeEvent.ofFile(ChangeType.CREATED, savedFile));
+        return convertToDTO(savedFile);
     }
 
     public List<FileDTO> getUserFiles(Long userId) {
@@ -141,6 +168,21 @@ public class FileService {
         return convertToDTO(file);
     }
 
+    /**
+     * Path on disk of a file of this user, for the reactive transfer server
+     */
+    public Path getStoredFilePath(Long fileId, Long userId) {
+        File file = fileRepository.findByIdAndUserId(fileId, userId)
+            .orElseThrow(() -> new RuntimeException("File not found"));
+        Path filePath = Paths.get(file.getFilePath());
+        if (!Files.isReadable(filePath)) {
+            throw new RuntimeException("File not found on disk");
+        }
+        meterRegistry.counter("fileflow.transfer.bytes", "direction", "out").increment(file.getFileSize());
+        return filePath;
+    }
+
+    @Timed(value = "fileflow.file.download", histogram = true)
     public Resource downloadFile(Long fileId, Long userId) {
         File file = fileRepository.findByIdAndUserId(fileId, userId)
             .orElseThrow(() -> new RuntimeException("File not found"));
@@ -150,6 +192,7 @@ public class FileService {
             Resource resource = new UrlResource(filePath.toUri());
 
             if (resource.exists() && resource.isReadable()) {
+                meterRegistry.counter("fileflow.transfer.bytes", "direction", "out").increment(file.getFileSize());
                 return resource;
             } else {
                 throw new RuntimeException("File not found on disk");
@@ -159,9 +202,16 @@ public class FileService {
         }
     }
 
-    public FileDTO renameFile(Long fileId, Long userId, String newName) throws ForbiddenException {
+    /**
+     * @param expectedVersion the If-Match version, null to rename whatever the current version
+     */
+    @Transactional
+    @UserLocked
+    @RetryOnConflict
+    public FileDTO renameFile(Long fileId, Long userId, String newName, Long expectedVersion) throws ForbiddenException {
         File file = fileRepository.findByIdAndUserId(fileId, userId)
             .orElseThrow(() -> new RuntimeException("File not found"));
+        ETagUtils.checkVersion(expectedVersion, file.getVersion());
         if(file.isShared()){
             throw new ForbiddenException("you are not allowed to edit the file");
         }
@@ -171,12 +221,14 @@ public class FileService {
         }
         renameFileAndCopies(file,newName);
 
-        File savedFile = fileRepository.save(file);
+        // flushed so that the returned version is the new one
+        File savedFile = fileRepository.saveAndFlush(file);
         return convertToDTO(savedFile);
     }
 
     private void renameFileAndCopies(File file, String newName) {
         file.setOriginalFileName(newName);
+        eventPublisher.publishEvent(ResourceChangeEvent.ofFile(ChangeType.UPDATED, file));
 
         if (file.getFileCopies() != null) {
             for (File copy : file.getFileCopies()) {
@@ -185,14 +237,18 @@ public class FileService {
         }
     }
 
-    public void deleteFile(Long fileId, Long userId) {
+    @Transactional
+    @UserLocked
+    public void deleteFile(Long fileId, Long userId, Long expectedVersion) {
         File file = fileRepository.findByIdAndUserId(fileId, userId)
             .orElseThrow(() -> new RuntimeException("File not found"));
+        ETagUtils.checkVersion(expectedVersion, file.getVersion());
 
         try {
             // Delete file from disk
             Path filePath = Paths.get(file.getFilePath());
-            Files.deleteIfExists(filePath);
+            StorageObservations.observe(observationRegistry, "delete", filePath,
+                () -> Files.deleteIfExists(filePath) ? file.getFileSize() : 0);
 
             // Update user storage
             User user = file.getUser();
@@ -201,6 +257,7 @@ public class FileService {
 
             // Delete metadata from database
             fileRepository.delete(file);
+            eventPublisher.publishEvent(ResourceChangeEvent.ofFile(ChangeType.DELETED, file));
 
         } catch (IOException e) {
             throw new RuntimeException("Failed to delete file", e);
@@ -214,12 +271,14 @@ public class FileService {
             .collect(Collectors.toList());
     }
 
+    @Transactional
     public FileDTO toggleFavorite(Long fileId, Long userId) {
         File file = fileRepository.findByIdAndUserId(fileId, userId)
             .orElseThrow(() -> new RuntimeException("File not found"));
 
         file.setIsFavorite(!file.getIsFavorite());
         File savedFile = fileRepository.save(file);
+        eventPublisher.publishEvent(ResourceChangeEvent.ofFile(ChangeType.UPDATED, savedFile));
         return convertToDTO(savedFile);
     }
 
@@ -243,6 +302,7 @@ public class FileService {
         dto.setCreatedAt(file.getCreatedAt());
         dto.setUpdatedAt(file.getUpdatedAt());
         dto.setFileExtension(file.getFileExtension());
+        dto.setVersion(file.getVersion());
         return dto;
     }
 
@@ -310,6 +370,9 @@ public class FileService {
             .collect(Collectors.toList());
     }
 
+    @Transactional
+    @Timed(value = "fileflow.bulk", extraTags = {"operation", "move-files"}, histogram = true)
+    @UserLocked
     public void bulkMoveFiles(List<Long> fileIds, Long destinationFolderId, Long userId) {
         // Validate all files belong to user
         List<File> files = fileRepository.findAllById(fileIds);
@@ -328,8 +391,10 @@ public class FileService {
 
         // Move files to destination folder
         for (File file : files) {
+            Long previousFolderId = file.getFolder() != null ? file.getFolder().getId() : null;
             file.setFolder(destinationFolder);
             fileRepository.save(file);
+            eventPublisher.publishEvent(ResourceChangeEvent.ofFile(ChangeType.MOVED, file, previousFolderId));
 
             // Move physical file if needed
             try {
@@ -340,6 +405,9 @@ public class FileService {
         }
     }
 
+    @Transactional
+    @Timed(value = "fileflow.bulk", extraTags = {"operation", "copy-files"}, histogram = true)
+    @UserLocked
     public void bulkCopyFiles(List<Long> fileIds, Long destinationFolderId, Long userId) {
         // Validate all files belong to user
         List<File> files = fileRepository.findAllById(fileIds);
@@ -377,7 +445,10 @@ public class FileService {
         Files.createDirectories(newPath.getParent());
         
         // Move the file
-        Files.move(oldPath, newPath, StandardCopyOption.REPLACE_EXISTING);
+        StorageObservations.observe(observationRegistry, "move", newPath, () -> {
+            Files.move(oldPath, newPath, StandardCopyOption.REPLACE_EXISTING);
+            return file.getFileSize();
+        });
     }
 
     private void copyFile(File originalFile, Folder destinationFolder) throws IOException {
@@ -393,6 +464,7 @@ public class FileService {
 
         // Save new file entity
         copiedFile = fileRepository.save(copiedFile);
+        eventPublisher.publishEvent(ResourceChangeEvent.ofFile(ChangeType.CREATED, copiedFile));
 
         // Copy physical file
         Path sourcePath = Paths.get(fileStorageConfig.getUploadDir(), String.valueOf(originalFile.getUser().getId()), originalFile.getFileName());
@@ -405,10 +477,13 @@ public class FileService {
         Files.createDirectories(destinationPath.getParent());
         
         // Copy the file
-        Files.copy(sourcePath, destinationPath, StandardCopyOption.REPLACE_EXISTING);
+        StorageObservations.observe(observationRegistry, "copy", destinationPath, () -> {
+            Files.copy(sourcePath, destinationPath, StandardCopyOption.REPLACE_EXISTING);
+            return originalFile.getFileSize();
+        });
     }
 
-    private String generateUniqueFileName(String originalFileName) {
+    String generateUniqueFileName(String originalFileName) {
         String extension = "";
         String nameWithoutExtension = originalFileName;
         
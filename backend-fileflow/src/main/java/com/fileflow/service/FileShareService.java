@@ -4,6 +4,8 @@ import com.fileflow.dto.FileDTO;
 import com.fileflow.dto.ShareNotificationDTO;
 import com.fileflow.entity.File;
 import com.fileflow.entity.FileShare;
+import com.fileflow.enums.ChangeType;
+import com.fileflow.event.ResourceChangeEvent;
 import com.fileflow.exception.ShareFileException;
 import com.fileflow.exception.UserNotFoundException;
 import com.fileflow.repository.FileRepository;
@@ -15,7 +17,9 @@ import com.fileflow.repository.UserRepository;
 
 
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -30,7 +34,10 @@ public class FileShareService implements IFileShareServices {
     private UserRepository userRepository;
     private FileRepository fileRepository;
     private FileShareRepository fileShareRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private NotificationService notificationService;
     @Override
+    @Transactional
     public ShareNotificationDTO shareFileWithUser(Long fileId, String userEmail) throws UserNotFoundException, FileNotFoundException, IOException {
         User user = userRepository.findByEmail(userEmail).orElseThrow(()->new UserNotFoundException("this email does not exist"));
         File fileToShare = fileRepository.findById(fileId).orElseThrow(()->new FileNotFoundException("file not found"));
@@ -41,10 +48,13 @@ public class FileShareService implements IFileShareServices {
                 .response(false)
                 .build();
         fileShareRepository.save(fileShare);
-        return ConvertToDTO(fileShare);
+        ShareNotificationDTO shareNotification = ConvertToDTO(fileShare);
+        notificationService.notify(user, "file-share", shareNotification);
+        return shareNotification;
     }
 
     @Override
+    @Transactional
     public void unshareFile(Long fileId, String userEmail) throws UserNotFoundException, FileNotFoundException {
         User user = userRepository.findByEmail(userEmail).orElseThrow(()-> new UserNotFoundException("email does not exist"));
         File file = fileRepository.findByUserIdAndOriginalFileId(user.getId(),fileId);
@@ -55,11 +65,13 @@ public class FileShareService implements IFileShareServices {
         fileShareRepository.delete(fileShare);
         if(file!=null) {
             fileRepository.delete(file);
+            eventPublisher.publishEvent(ResourceChangeEvent.ofFile(ChangeType.DELETED, file));
         }
 
     }
 
     @Override
+    @Transactional
     public FileDTO shareResponse(Long sharefileId, boolean response)throws ShareFileException {
         FileShare fileShare = fileShareRepository.findById(sharefileId).orElseThrow(()->new ShareFileException(""));
         if(response){
@@ -67,6 +79,7 @@ public class FileShareService implements IFileShareServices {
             File originaleFile = fileShare.getFile();
             File file = originaleFile.toBuilder()
                     .id(null)
+                    .version(null)
                     .isShared(true)
                     .originalFile(originaleFile)
                     .FileCopies(null)
@@ -77,6 +90,7 @@ public class FileShareService implements IFileShareServices {
                     .build();
             fileShareRepository.save(fileShare);
             File fileToReturn = fileRepository.save(file);
+            eventPublisher.publishEvent(ResourceChangeEvent.ofFile(ChangeType.CREATED, fileToReturn));
             return fileService.convertToDTO(fileToReturn);
         }
         else{
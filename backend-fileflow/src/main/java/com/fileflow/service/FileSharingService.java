@@ -4,6 +4,8 @@ import com.fileflow.dto.FileShareDTO;
 import com.fileflow.entity.File;
 import com.fileflow.entity.FileShare;
 import com.fileflow.entity.User;
+import com.fileflow.enums.ChangeType;
+import com.fileflow.event.ResourceChangeEvent;
 import com.fileflow.repository.FileRepository;
 import com.fileflow.repository.FileShareRepository;
 import com.fileflow.repository.UserRepository;
@@ -13,6 +15,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -33,6 +36,8 @@ public class FileSharingService {
     private final FileRepository fileRepository;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShareLinkService shareLinkService;
 
     @Value("${app.base-url:http://localhost:8088}")
     private String baseUrl;
@@ -71,32 +76,6 @@ public class FileSharingService {
         return shares.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
-    public Map<String, Object> getSharedFile(String shareToken, String password) {
-        FileShare share = fileShareRepository.findActiveShareByToken(shareToken, LocalDateTime.now())
-            .orElseThrow(() -> new RuntimeException("Share not found or expired"));
-
-        // Vérifier le mot de passe si nécessaire
-        if (share.getPasswordHash() != null) {
-            if (password == null || !passwordEncoder.matches(password, share.getPasswordHash())) {
-                throw new RuntimeException("Invalid password");
-            }
-        }
-
-        // Incrémenter le compteur d'accès
-        fileShareRepository.incrementAccessCount(share.getId());
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("fileId", share.getFile().getId());
-        result.put("fileName", share.getFile().getOriginalFileName());
-        result.put("fileSize", share.getFile().getFileSize());
-        result.put("contentType", share.getFile().getContentType());
-        result.put("allowDownload", share.getAllowDownload());
-        result.put("shareType", share.getShareType());
-        result.put("accessCount", share.getAccessCount() + 1);
-
-        return result;
-    }
-
     public void revokeShare(Long shareId, Long userId) {
         FileShare share = fileShareRepository.findById(shareId)
             .orElseThrow(() -> new RuntimeException("Share not found"));
@@ -107,6 +86,7 @@ public class FileSharingService {
 
         share.setIsActive(false);
         fileShareRepository.save(share);
+        shareLinkService.evict(share.getShareToken());
     }
 
     public List<FileShareDTO> getUserShares(Long userId) {
@@ -142,6 +122,10 @@ public class FileSharingService {
         share.setResponse(accept);
         share.setIsActive(accept);
         fileShareRepository.save(share);
+        if (accept) {
+            eventPublisher.publishEvent(ResourceChangeEvent.ofSharedFile(
+                ChangeType.CREATED, share.getFile(), share.getTargetUser().getId()));
+        }
         return accept;
     }
 
@@ -161,6 +145,9 @@ public class FileSharingService {
             .orElseThrow(() -> new RuntimeException("Share not found"));
             
         fileShareRepository.delete(share);
+        if (Boolean.TRUE.equals(share.getIsActive()) && share.isResponse()) {
+            eventPublisher.publishEvent(ResourceChangeEvent.ofSharedFile(ChangeType.DELETED, share.getFile(), targetUser.getId()));
+        }
     }
 
     private FileShareDTO convertToDTO(FileShare share) {
@@ -0,0 +1,87 @@
+package com.fileflow.service;
+
+import com.fileflow.dto.ChangeEventDTO;
+import com.fileflow.enums.ChangeType;
+import com.fileflow.enums.ResourceType;
+import com.fileflow.event.ResourceChangeEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Pushes committed file/folder changes to the per-folder topics.
+ *
+ * Clients subscribe to /topic/folders/{folderId} for the listing they display
+ * (access is checked on SUBSCRIBE by the channel interceptor); changes in the
+ * root listing go to the owner only, on /user/queue/folders/root.
+ */
+@Service
+@Slf4j
+public class FolderChangeFeedService {
+
+    public static final String FOLDER_TOPIC_PREFIX = "/topic/folders/";
+    public static final String ROOT_QUEUE = "/queue/folders/root";
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public FolderChangeFeedService(SimpMessageSendingOperations messagingTemplate, MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onResourceChange(ResourceChangeEvent event) {
+        if (event.isShareScoped()) {
+            return; // nothing changed inside any folder listing
+        }
+        ChangeEventDTO payload = toDTO(event);
+
+        // The listing the resource is in now, the one it left, and the folder itself
+        // when a folder is deleted so viewers of that folder can navigate away.
+        Set<Long> folderIds = new LinkedHashSet<>();
+        folderIds.add(event.getFolderId());
+        if (event.getType() == ChangeType.MOVED && !Objects.equals(event.getPreviousFolderId(), event.getFolderId())) {
+            folderIds.add(event.getPreviousFolderId());
+        }
+        if (event.getType() == ChangeType.DELETED && event.getResourceType() == ResourceType.FOLDER) {
+            folderIds.add(event.getResourceId());
+        }
+
+        for (Long folderId : folderIds) {
+            try {
+                meterRegistry.timer("fileflow.websocket.send", "channel", "folders").record(() -> {
+                    if (folderId == null) {
+                        messagingTemplate.convertAndSendToUser(event.getOwnerEmail(), ROOT_QUEUE, payload);
+                    } else {
+                        messagingTemplate.convertAndSend(FOLDER_TOPIC_PREFIX + folderId, payload);
+                    }
+                });
+            } catch (Exception e) {
+                log.warn("Could not publish {} {} change for folder {}: {}",
+                    event.getResourceType(), event.getResourceId(), folderId, e.getMessage());
+            }
+        }
+    }
+
+    public static ChangeEventDTO toDTO(ResourceChangeEvent event) {
+        return new ChangeEventDTO(
+            null,
+            event.getType(),
+            event.getResourceType(),
+            event.getResourceId(),
+            event.getFolderId(),
+            event.getPreviousFolderId(),
+            event.getType() == ChangeType.DELETED ? null : event.getName(),
+            event.getType() == ChangeType.DELETED ? null : event.getSize(),
+            event.getOccurredAt()
+        );
+    }
+}
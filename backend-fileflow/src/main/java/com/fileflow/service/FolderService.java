@@ -7,11 +7,20 @@ import com.fileflow.entity.File;
 import com.fileflow.entity.Folder;
 import com.fileflow.entity.User;
 import com.fileflow.config.FileStorageConfig;
+import com.fileflow.enums.ChangeType;
+import com.fileflow.event.ResourceChangeEvent;
 import com.fileflow.repository.FileRepository;
 import com.fileflow.repository.FolderRepository;
 import com.fileflow.repository.FolderShareRepository;
 import com.fileflow.repository.UserRepository;
+import com.fileflow.utils.ETagUtils;
+import com.fileflow.utils.RetryOnConflict;
+import com.fileflow.utils.StorageObservations;
+import com.fileflow.utils.UserLocked;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,15 +42,20 @@ public class FolderService {
     private final FileRepository fileRepository;
     private final FolderShareRepository folderShareRepository;
     private final FileStorageConfig fileStorageConfig;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObservationRegistry observationRegistry;
 
-    public FolderService(FolderRepository folderRepository, UserRepository userRepository, FileRepository fileRepository, FolderShareRepository folderShareRepository, FileStorageConfig fileStorageConfig) {
+    public FolderService(FolderRepository folderRepository, UserRepository userRepository, FileRepository fileRepository, FolderShareRepository folderShareRepository, FileStorageConfig fileStorageConfig, ApplicationEventPublisher eventPublisher, ObservationRegistry observationRegistry) {
         this.folderRepository = folderRepository;
         this.userRepository = userRepository;
         this.fileRepository = fileRepository;
         this.folderShareRepository = folderShareRepository;
         this.fileStorageConfig = fileStorageConfig;
+        this.eventPublisher = eventPublisher;
+        this.observationRegistry = observationRegistry;
     }
 
+    @UserLocked
     public FolderDTO createFolder(String name, Long parentId, Long userId, String description, String color) {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
@@ -79,6 +93,7 @@ public class FolderService {
         }
 
         folder = folderRepository.save(folder);
+        eventPublisher.publishEvent(ResourceChangeEvent.ofFolder(ChangeType.CREATED, folder));
         return convertToDTO(folder, false);
     }
 
@@ -119,9 +134,16 @@ public class FolderService {
         return convertToDTO(folder, true);
     }
 
-    public FolderDTO updateFolder(Long folderId, String name, String color, String description, Long userId) {
+    /**
+     * @param expectedVersion the If-Match version, null to update whatever the current version
+     */
+    @UserLocked
+    @RetryOnConflict
+    public FolderDTO updateFolder(Long folderId, String name, String color, String description, Long userId,
+                                  Long expectedVersion) {
         Folder folder = folderRepository.findByIdAndUserId(folderId, userId)
             .orElseThrow(() -> new RuntimeException("Folder not found"));
+        ETagUtils.checkVersion(expectedVersion, folder.getVersion());
 
         if (name != null && !name.equals(folder.getName())) {
             // Vérifier si un dossier avec le même nom existe déjà
@@ -146,7 +168,9 @@ public class FolderService {
             folder.setDescription(description);
         }
 
-        folder = folderRepository.save(folder);
+        // flushed so that the returned version is the new one
+        folder = folderRepository.saveAndFlush(folder);
+        eventPublisher.publishEvent(ResourceChangeEvent.ofFolder(ChangeType.UPDATED, folder));
         return convertToDTO(folder, true);
     }
 
@@ -156,13 +180,17 @@ public class FolderService {
 
         folder.setIsFavorite(!folder.getIsFavorite());
         folder = folderRepository.save(folder);
+        eventPublisher.publishEvent(ResourceChangeEvent.ofFolder(ChangeType.UPDATED, folder));
         return convertToDTO(folder, false);
     }
 
     @Transactional
-    public void deleteFolder(Long folderId, Long userId) {
+    @Timed(value = "fileflow.folder.delete", histogram = true)
+    @UserLocked
+    public void deleteFolder(Long folderId, Long userId, Long expectedVersion) {
         Folder folder = folderRepository.findByIdAndUserId(folderId, userId)
             .orElseThrow(() -> new RuntimeException("Folder not found"));
+        ETagUtils.checkVersion(expectedVersion, folder.getVersion());
 
         // Delete all folder shares first
         cleanupFolderShares(folder);
@@ -172,12 +200,17 @@ public class FolderService {
         
         // Now delete the folder itself
         folderRepository.delete(folder);
+        eventPublisher.publishEvent(ResourceChangeEvent.ofFolder(ChangeType.DELETED, folder));
     }
     
     private void cleanupFolderShares(Folder folder) {
         // Delete all shares for this folder
         List<com.fileflow.entity.FolderShare> folderShares = folderShareRepository.findByFolderId(folder.getId());
         if (!folderShares.isEmpty()) {
+            folderShares.stream()
+                .filter(share -> "accepted".equals(share.getStatus()))
+                .forEach(share -> eventPublisher.publishEvent(
+                    ResourceChangeEvent.ofSharedFolder(ChangeType.DELETED, folder, share.getTargetUser().getId())));
             folderShareRepository.deleteAll(folderShares);
             log.info("Deleted {} folder shares for folder {}", folderShares.size(), folder.getId());
         }
@@ -195,9 +228,8 @@ public class FolderService {
                 // Delete physical file from storage
                 try {
                     Path filePath = Paths.get(file.getFilePath());
-                    if (Files.exists(filePath)) {
-                        Files.delete(filePath);
-                    }
+                    StorageObservations.observe(observationRegistry, "delete", filePath,
+                        () -> Files.deleteIfExists(filePath) ? file.getFileSize() : 0);
                 } catch (IOException e) {
                     // Log error but continue with deletion
                     log.warn("Could not delete physical file: " + file.getFilePath(), e);
@@ -233,17 +265,23 @@ public class FolderService {
     }
 
     /**
-     * Move a folder to a new parent folder
+     * Move a folder to a new parent folder, if it is still at expectedVersion (If-Match)
+     * when one is given
      */
-    public FolderDTO moveFolder(Long folderId, Long newParentId, Long userId) {
+    @UserLocked
+    @RetryOnConflict
+    public FolderDTO moveFolder(Long folderId, Long newParentId, Long userId, Long expectedVersion) {
         Folder folder = folderRepository.findByIdAndUserId(folderId, userId)
             .orElseThrow(() -> new RuntimeException("Folder not found"));
+        ETagUtils.checkVersion(expectedVersion, folder.getVersion());
 
         // Prevent moving a folder into itself or its descendants
         if (newParentId != null && isDescendant(folder, newParentId)) {
             throw new RuntimeException("Cannot move folder into itself or its descendants");
         }
 
+        Long previousParentId = folder.getParent() != null ? folder.getParent().getId() : null;
+
         // Check if a folder with the same name already exists in the new location
         if (newParentId != null) {
             if (folderRepository.findByUserIdAndNameAndParentId(userId, folder.getName(), newParentId).isPresent()) {
@@ -264,7 +302,8 @@ public class FolderService {
         // Update paths for this folder and all its descendants
         updateFolderPath(folder);
         
-        folder = folderRepository.save(folder);
+        folder = folderRepository.saveAndFlush(folder);
+        eventPublisher.publishEvent(ResourceChangeEvent.ofFolder(ChangeType.MOVED, folder, previousParentId));
         log.info("Moved folder '{}' (ID: {}) to new parent (ID: {})", folder.getName(), folderId, newParentId);
         
         return convertToDTO(folder, true);
@@ -274,6 +313,8 @@ public class FolderService {
      * Copy/Duplicate a folder with all its contents
      */
     @Transactional
+    @Timed(value = "fileflow.folder.copy", histogram = true)
+    @UserLocked
     public FolderDTO copyFolder(Long folderId, Long newParentId, String newName, Long userId) {
         Folder originalFolder = folderRepository.findByIdAndUserId(folderId, userId)
             .orElseThrow(() -> new RuntimeException("Folder not found"));
@@ -301,6 +342,7 @@ public class FolderService {
             
             // Copy files in a separate method outside of transaction rollback scope
             copyAllFilesInFolderHierarchy(originalFolder, copiedFolder);
+            eventPublisher.publishEvent(ResourceChangeEvent.ofFolder(ChangeType.CREATED, copiedFolder));
             
             log.info("Successfully copied folder '{}' (ID: {}) to '{}' (ID: {})", 
                     originalFolder.getName(), folderId, copiedFolder.getName(), copiedFolder.getId());
@@ -416,7 +458,7 @@ public class FolderService {
         }
     }
 
-    private FolderDTO convertToDTO(Folder folder, boolean includeChildren) {
+    FolderDTO convertToDTO(Folder folder, boolean includeChildren) {
         if (folder == null) {
             return null;
         }
@@ -431,6 +473,7 @@ public class FolderService {
         dto.setDescription(folder.getDescription());
         dto.setCreatedAt(folder.getCreatedAt());
         dto.setUpdatedAt(folder.getUpdatedAt());
+        dto.setVersion(folder.getVersion());
 
         // Gestion du parent (éviter la récursion)
         if (folder.getParent() != null) {
@@ -458,6 +501,7 @@ public class FolderService {
                         subDto.setColor(subfolder.getColor());
                         subDto.setFileCount(subfolder.getFileCount());
                         subDto.setSubfolderCount(subfolder.getSubfolderCount());
+                        subDto.setVersion(subfolder.getVersion());
                         return subDto;
                     })
                     .collect(Collectors.toList()));
@@ -479,6 +523,7 @@ public class FolderService {
                         fileDto.setCreatedAt(file.getCreatedAt());
                         fileDto.setUpdatedAt(file.getUpdatedAt());
                         fileDto.setFileExtension(file.getFileExtension());
+                        fileDto.setVersion(file.getVersion());
                         return fileDto;
                     })
                     .collect(Collectors.toList()));
@@ -505,7 +550,7 @@ public class FolderService {
         return breadcrumb;
     }
 
-    private String formatFileSize(long size) {
+    String formatFileSize(long size) {
         if (size < 1024) return size + " B";
         int exp = (int) (Math.log(size) / Math.log(1024));
         String pre = "KMGTPE".charAt(exp - 1) + "";
@@ -524,6 +569,9 @@ public class FolderService {
      * @return List of moved folder DTOs
      */
     @Transactional
+    @Timed(value = "fileflow.bulk", extraTags = {"operation", "move-folders"}, histogram = true)
+    @UserLocked
+    @RetryOnConflict
     public List<FolderDTO> bulkMoveFolder(List<Long> folderIds, Long newParentId, Long userId) {
         if (folderIds == null || folderIds.isEmpty()) {
             throw new RuntimeException("No folders specified for bulk move");
@@ -552,9 +600,11 @@ public class FolderService {
         // Perform bulk move
         List<FolderDTO> movedFolders = new ArrayList<>();
         for (Folder folder : foldersToMove) {
+            Long previousParentId = folder.getParent() != null ? folder.getParent().getId() : null;
             folder.setParent(newParent);
             updateFolderPath(folder);
             Folder savedFolder = folderRepository.save(folder);
+            eventPublisher.publishEvent(ResourceChangeEvent.ofFolder(ChangeType.MOVED, savedFolder, previousParentId));
             movedFolders.add(convertToDTO(savedFolder, false));
         }
 
@@ -569,6 +619,8 @@ public class FolderService {
      * @return List of copied folder DTOs
      */
     @Transactional
+    @Timed(value = "fileflow.bulk", extraTags = {"operation", "copy-folders"}, histogram = true)
+    @UserLocked
     public List<FolderDTO> bulkCopyFolder(List<Long> folderIds, Long newParentId, Long userId) {
         if (folderIds == null || folderIds.isEmpty()) {
             throw new RuntimeException("No folders specified for bulk copy");
@@ -604,6 +656,7 @@ public class FolderService {
             
             // Copy files separately to avoid transaction issues
             copyAllFilesInFolderHierarchy(folder, copiedFolder);
+            eventPublisher.publishEvent(ResourceChangeEvent.ofFolder(ChangeType.CREATED, copiedFolder));
             
             copiedFolders.add(convertToDTO(copiedFolder, false));
         }
@@ -618,6 +671,8 @@ public class FolderService {
      * @return Number of folders deleted
      */
     @Transactional
+    @Timed(value = "fileflow.bulk", extraTags = {"operation", "delete-folders"}, histogram = true)
+    @UserLocked
     public int bulkDeleteFolder(List<Long> folderIds, Long userId) {
         if (folderIds == null || folderIds.isEmpty()) {
             throw new RuntimeException("No folders specified for bulk delete");
@@ -643,10 +698,11 @@ public class FolderService {
                 
                 // Delete the folder itself
                 folderRepository.delete(folder);
+                eventPublisher.publishEvent(ResourceChangeEvent.ofFolder(ChangeType.DELETED, folder));
                 deletedCount++;
             } catch (Exception e) {
                 // Log error but continue with other folders
-                System.err.println("Failed to delete folder " + folder.getId() + ": " + e.getMessage());
+                log.warn("Failed to delete folder {}: {}", folder.getId(), e.getMessage());
             }
         }
 
@@ -746,7 +802,10 @@ public class FolderService {
             Files.createDirectories(destinationPath.getParent());
             
             // Copy the file
-            Files.copy(sourcePath, destinationPath, StandardCopyOption.REPLACE_EXISTING);
+            StorageObservations.observe(observationRegistry, "copy", destinationPath, () -> {
+                Files.copy(sourcePath, destinationPath, StandardCopyOption.REPLACE_EXISTING);
+                return originalFile.getFileSize();
+            });
             
         } catch (Exception e) {
             // If physical file copy fails, clean up the database record
@@ -762,7 +821,7 @@ public class FolderService {
     /**
      * Helper method to generate unique file names for copies
      */
-    private String generateUniqueFileName(String originalFileName) {
+    String generateUniqueFileName(String originalFileName) {
         String extension = "";
         String nameWithoutExtension = originalFileName;
         
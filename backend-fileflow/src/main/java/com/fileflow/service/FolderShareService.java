@@ -5,16 +5,19 @@ import com.fileflow.dto.FolderShareDTO;
 import com.fileflow.entity.Folder;
 import com.fileflow.entity.FolderShare;
 import com.fileflow.entity.User;
+import com.fileflow.enums.ChangeType;
+import com.fileflow.event.ResourceChangeEvent;
 import com.fileflow.repository.FolderRepository;
 import com.fileflow.repository.FolderShareRepository;
 import com.fileflow.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,22 +28,27 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FolderShareService {
 
+    private static final int MAX_FOLDER_DEPTH = 256;
+
     private final FolderShareRepository folderShareRepository;
     private final FolderRepository folderRepository;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public FolderShareService(FolderShareRepository folderShareRepository, 
                              FolderRepository folderRepository,
                              UserRepository userRepository,
                              PasswordEncoder passwordEncoder,
-                             SimpMessagingTemplate messagingTemplate) {
+                             NotificationService notificationService,
+                             ApplicationEventPublisher eventPublisher) {
         this.folderShareRepository = folderShareRepository;
         this.folderRepository = folderRepository;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.messagingTemplate = messagingTemplate;
+        this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -86,7 +94,7 @@ public class FolderShareService {
 
         folderShare = folderShareRepository.save(folderShare);
         
-        // Send WebSocket notification to target user
+        // Store in the target user's inbox, pushed over WebSocket after commit
         Map<String, Object> notification = new HashMap<>();
         notification.put("id", folderShare.getId());
         notification.put("owner", owner.getEmail());
@@ -96,11 +104,7 @@ public class FolderShareService {
         notification.put("permissions", folderShare.getPermissions());
         notification.put("userId", targetUser.getId());
         
-        messagingTemplate.convertAndSendToUser(
-            targetUser.getEmail(),
-            "/queue/notify",
-            notification
-        );
+        notificationService.notify(targetUser, "folder-share", notification);
         
         log.info("Folder '{}' (ID: {}) shared with user '{}' by '{}'", 
                 folder.getName(), folderId, targetUser.getEmail(), owner.getEmail());
@@ -159,6 +163,9 @@ public class FolderShareService {
         folderShare.setRespondedAt(LocalDateTime.now());
         
         folderShare = folderShareRepository.save(folderShare);
+        if (accept) {
+            eventPublisher.publishEvent(ResourceChangeEvent.ofSharedFolder(ChangeType.CREATED, folderShare.getFolder(), userId));
+        }
 
         log.info("Folder share request {} by user {}", 
                 accept ? "accepted" : "rejected", folderShare.getTargetUser().getEmail());
@@ -178,8 +185,13 @@ public class FolderShareService {
             throw new RuntimeException("Access denied - only the owner can revoke shares");
         }
 
+        boolean wasAccepted = "accepted".equals(folderShare.getStatus());
         folderShare.setStatus("revoked");
         folderShareRepository.save(folderShare);
+        if (wasAccepted) {
+            eventPublisher.publishEvent(ResourceChangeEvent.ofSharedFolder(
+                ChangeType.DELETED, folderShare.getFolder(), folderShare.getTargetUser().getId()));
+        }
 
         log.info("Folder share revoked by owner for folder: {}", folderShare.getFolder().getName());
     }
@@ -203,45 +215,53 @@ public class FolderShareService {
      */
     public void removeUserFromFolder(Long folderId, Long ownerId, String targetUserEmail) {
         // Validate folder ownership
-        folderRepository.findByIdAndUserId(folderId, ownerId)
+        Folder folder = folderRepository.findByIdAndUserId(folderId, ownerId)
             .orElseThrow(() -> new RuntimeException("Folder not found or access denied"));
 
         User targetUser = userRepository.findByEmail(targetUserEmail)
             .orElseThrow(() -> new RuntimeException("User not found"));
 
         folderShareRepository.deleteByFolderIdAndTargetUserId(folderId, targetUser.getId());
+        eventPublisher.publishEvent(ResourceChangeEvent.ofSharedFolder(ChangeType.DELETED, folder, targetUser.getId()));
 
         log.info("User '{}' removed from folder sharing for folder ID: {}", targetUserEmail, folderId);
     }
 
     /**
-     * Check if user has access to a folder
+     * Check if user has access to a folder, directly or through a shared parent folder
      */
+    @Transactional(readOnly = true)
     public boolean hasAccessToFolder(Long folderId, Long userId) {
-        // Check if user owns the folder
-        if (folderRepository.findByIdAndUserId(folderId, userId).isPresent()) {
-            return true;
-        }
-
-        // Check if user has accepted share access
-        return folderShareRepository.findByFolderIdAndTargetUserId(folderId, userId)
-            .filter(share -> "accepted".equals(share.getStatus()))
-            .isPresent();
+        return !"none".equals(getUserPermissionForFolder(folderId, userId));
     }
 
     /**
-     * Get user's permission level for a folder
+     * Get user's permission level for a folder: admin for the owner, otherwise the permissions
+     * of the accepted share on the folder or on its closest shared ancestor
      */
+    @Transactional(readOnly = true)
     public String getUserPermissionForFolder(Long folderId, Long userId) {
-        // Check if user owns the folder
-        if (folderRepository.findByIdAndUserId(folderId, userId).isPresent()) {
+        Folder folder = folderRepository.findById(folderId).orElse(null);
+        if (folder == null) {
+            return "none";
+        }
+        if (folder.getUser().getId().equals(userId)) {
             return "admin";
         }
 
-        // Check shared permissions
-        return folderShareRepository.findByFolderIdAndTargetUserId(folderId, userId)
-            .filter(share -> "accepted".equals(share.getStatus()))
-            .map(FolderShare::getPermissions)
+        // the folder first, then up to the root
+        List<Long> path = new ArrayList<>();
+        for (Folder current = folder; current != null && path.size() < MAX_FOLDER_DEPTH; current = current.getParent()) {
+            path.add(current.getId());
+        }
+        Map<Long, String> permissions = new HashMap<>();
+        for (FolderShare share : folderShareRepository.findAcceptedSharesForFoldersAndUser(path, userId)) {
+            permissions.putIfAbsent(share.getFolder().getId(), share.getPermissions());
+        }
+        return path.stream()
+            .filter(permissions::containsKey)
+            .map(permissions::get)
+            .findFirst()
             .orElse("none");
     }
 
@@ -29,13 +29,13 @@ import static com.fileflow.utils.EmailTemplate.loadEmailTemplate;
 public class ForgotPasswordService {
     private final UserAuthRepository userRepository;
     private final PasswordResetTokenRepository tokenRepository;
-    private final EmailService emailService;
+    private final EmailDispatcher emailDispatcher;
     private final PasswordEncoder passwordEncoder;
 
-    public ForgotPasswordService(UserAuthRepository userRepository, PasswordResetTokenRepository tokenRepository, EmailService emailService, PasswordEncoder passwordEncoder) {
+    public ForgotPasswordService(UserAuthRepository userRepository, PasswordResetTokenRepository tokenRepository, EmailDispatcher emailDispatcher, PasswordEncoder passwordEncoder) {
         this.userRepository = userRepository;
         this.tokenRepository = tokenRepository;
-        this.emailService = emailService;
+        this.emailDispatcher = emailDispatcher;
         this.passwordEncoder = passwordEncoder;
     }
 
@@ -65,7 +65,7 @@ public class ForgotPasswordService {
 
         String body = loadEmailTemplate("reset-password-email.html", vars);
 
-        emailService.sendEmail(user.getEmail(), "Réinitialisation de mot de passe", body);
+        emailDispatcher.dispatch(user.getEmail(), "Réinitialisation de mot de passe", body);
 
         return ResponseEntity.ok(new ApiResponse<>(true, "Lien envoyé avec succès", resetUrl));
     }
@@ -0,0 +1,233 @@
+package com.fileflow.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fileflow.dto.NotificationDTO;
+import com.fileflow.entity.Notification;
+import com.fileflow.entity.User;
+import com.fileflow.enums.StreamEventType;
+import com.fileflow.event.UserStreamEvent;
+import com.fileflow.repository.NotificationRepository;
+import com.fileflow.utils.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Per-user notification inbox.
+ *
+ * Every notification is stored before it is pushed on /user/queue/notify, and the push
+ * only happens once the surrounding transaction commits. Items stay unacknowledged
+ * until the client acks them; whenever a STOMP session subscribes to /user/queue/notify
+ * the unacked items are replayed to that session only, so offline users miss nothing.
+ * Pushed bodies carry notificationId next to the original payload keys. Committed
+ * notifications are also published as UserStreamEvent for the SSE stream.
+ */
+@Service
+@Slf4j
+public class NotificationService {
+
+    public static final String NOTIFY_QUEUE = "/queue/notify";
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    private final NotificationRepository notificationRepository;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notifications.max-per-user:200}")
+    private int maxPerUser;
+
+    @Value("${notifications.retention:P30D}")
+    private Duration retention;
+
+    @Value("${notifications.replay-limit:100}")
+    private int replayLimit;
+
+    public NotificationService(NotificationRepository notificationRepository,
+                               SimpMessageSendingOperations messagingTemplate,
+                               ObjectMapper objectMapper,
+                               ApplicationEventPublisher eventPublisher,
+                               MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Store a notification for the target user and push it after commit
+     */
+    @Transactional
+    public NotificationDTO notify(User target, String type, Object payload) {
+        Map<String, Object> body = objectMapper.convertValue(payload, PAYLOAD_TYPE);
+
+        Notification notification = Notification.builder()
+            .userId(target.getId())
+            .type(type)
+            .payload(writePayload(body))
+            .createdAt(LocalDateTime.now())
+            .build();
+        notification = notificationRepository.save(notification);
+
+        Long id = notification.getId();
+        Map<String, Object> message = withNotificationId(body, id);
+        String email = target.getEmail();
+        Long userId = target.getId();
+        TransactionUtils.afterCommit(() -> {
+            send(email, message, null);
+            eventPublisher.publishEvent(new UserStreamEvent(userId, StreamEventType.NOTIFICATION, id, message));
+        });
+
+        return convertToDTO(notification);
+    }
+
+    /**
+     * Push every unacknowledged notification to a single STOMP session, oldest first
+     */
+    @Transactional(readOnly = true)
+    public void replayUnacknowledged(Long userId, String email, String sessionId) {
+        List<Map<String, Object>> pending = getPendingMessages(userId, 0L);
+        for (Map<String, Object> message : pending) {
+            send(email, message, sessionId);
+        }
+        if (!pending.isEmpty()) {
+            log.debug("Replayed {} unacknowledged notifications to {} (session: {})", pending.size(), email, sessionId);
+        }
+    }
+
+    /**
+     * Unacknowledged notifications after the given id, oldest first, as pushed bodies
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getPendingMessages(Long userId, Long afterId) {
+        return notificationRepository
+            .findByUserIdAndAckedAtIsNullAndIdGreaterThanOrderByIdAsc(userId, afterId, PageRequest.of(0, replayLimit))
+            .stream()
+            .map(notification -> withNotificationId(readPayload(notification), notification.getId()))
+            .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<NotificationDTO> getNotifications(Long userId, boolean unackedOnly, int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, maxPerUser)));
+        List<Notification> notifications = unackedOnly
+            ? notificationRepository.findByUserIdAndAckedAtIsNullOrderByIdAsc(userId, page)
+            : notificationRepository.findByUserIdOrderByIdDesc(userId, page);
+        return notifications.stream().map(this::convertToDTO).toList();
+    }
+
+    @Transactional
+    public NotificationDTO markAsRead(Long id, Long userId) {
+        Notification notification = notificationRepository.findByIdAndUserId(id, userId)
+            .orElseThrow(() -> new RuntimeException("Notification not found"));
+        if (notification.getReadAt() == null) {
+            notification.setReadAt(LocalDateTime.now());
+        }
+        return convertToDTO(notification);
+    }
+
+    /**
+     * Acknowledge the given ids, or everything up to and including upTo
+     */
+    @Transactional
+    public int acknowledge(Long userId, Collection<Long> ids, Long upTo) {
+        LocalDateTime now = LocalDateTime.now();
+        int acked = 0;
+        if (ids != null && !ids.isEmpty()) {
+            acked += notificationRepository.acknowledge(userId, ids, now);
+        }
+        if (upTo != null) {
+            acked += notificationRepository.acknowledgeUpTo(userId, upTo, now);
+        }
+        return acked;
+    }
+
+    @Scheduled(cron = "${notifications.cleanup-cron:0 30 * * * *}")
+    @Transactional
+    public void applyRetention() {
+        int expired = notificationRepository.deleteAllBefore(LocalDateTime.now().minus(retention));
+
+        int trimmed = 0;
+        for (Long userId : notificationRepository.findUserIdsWithMoreThan(maxPerUser)) {
+            List<Notification> boundary = notificationRepository
+                .findByUserIdOrderByIdDesc(userId, PageRequest.of(maxPerUser, 1));
+            if (!boundary.isEmpty()) {
+                trimmed += notificationRepository.deleteByUserIdUpTo(userId, boundary.get(0).getId());
+            }
+        }
+
+        if (expired > 0 || trimmed > 0) {
+            log.info("Notification inbox cleanup: {} expired and {} over-limit notifications removed", expired, trimmed);
+        }
+    }
+
+    private void send(String email, Map<String, Object> message, String sessionId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            if (sessionId == null) {
+                messagingTemplate.convertAndSendToUser(email, NOTIFY_QUEUE, message);
+            } else {
+                SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+                headers.setSessionId(sessionId);
+                headers.setLeaveMutable(true);
+                messagingTemplate.convertAndSendToUser(email, NOTIFY_QUEUE, message, headers.getMessageHeaders());
+            }
+            sample.stop(meterRegistry.timer("fileflow.websocket.send", "channel", "notify"));
+        } catch (Exception e) {
+            // Still stored, the client gets it on its next subscribe
+            log.warn("Could not push notification {} to {}: {}", message.get("notificationId"), email, e.getMessage());
+        }
+    }
+
+    private Map<String, Object> withNotificationId(Map<String, Object> body, Long id) {
+        Map<String, Object> message = new LinkedHashMap<>(body);
+        message.put("notificationId", id);
+        return message;
+    }
+
+    private String writePayload(Map<String, Object> body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize notification payload", e);
+        }
+    }
+
+    private Map<String, Object> readPayload(Notification notification) {
+        try {
+            return objectMapper.readValue(notification.getPayload(), PAYLOAD_TYPE);
+        } catch (JsonProcessingException e) {
+            log.warn("Unreadable payload for notification {}: {}", notification.getId(), e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    private NotificationDTO convertToDTO(Notification notification) {
+        return new NotificationDTO(
+            notification.getId(),
+            notification.getType(),
+            readPayload(notification),
+            notification.getCreatedAt(),
+            notification.getReadAt(),
+            notification.getAckedAt()
+        );
+    }
+}
@@ -0,0 +1,131 @@
+package com.fileflow.service;
+
+import com.fileflow.repository.FolderShareRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which users have at least one open STOMP session.
+ *
+ * Connects and disconnects only mark a user as dirty; a scheduled flush compares the
+ * current state with the last published one, so a reconnect burst inside one flush
+ * window produces no event at all. Changes are pushed only to online users who share
+ * an accepted folder with the user whose state changed.
+ */
+@Service
+@Slf4j
+public class PresenceService {
+
+    private final FolderShareRepository folderShareRepository;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, String> sessionToUser = new ConcurrentHashMap<>();
+    private final Map<String, Integer> sessionCounts = new ConcurrentHashMap<>();
+    private final Set<String> dirtyUsers = ConcurrentHashMap.newKeySet();
+    private final Set<String> publishedOnline = ConcurrentHashMap.newKeySet();
+
+    public PresenceService(FolderShareRepository folderShareRepository,
+                           SimpMessageSendingOperations messagingTemplate,
+                           MeterRegistry meterRegistry) {
+        this.folderShareRepository = folderShareRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void sessionConnected(String sessionId, String username) {
+        if (sessionId == null || username == null) {
+            return;
+        }
+        if (sessionToUser.putIfAbsent(sessionId, username) != null) {
+            return;
+        }
+        sessionCounts.merge(username, 1, Integer::sum);
+        dirtyUsers.add(username);
+    }
+
+    public void sessionDisconnected(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        String username = sessionToUser.remove(sessionId);
+        if (username == null) {
+            return;
+        }
+        sessionCounts.computeIfPresent(username, (key, count) -> count > 1 ? count - 1 : null);
+        dirtyUsers.add(username);
+    }
+
+    public boolean isOnline(String username) {
+        return username != null && sessionCounts.containsKey(username);
+    }
+
+    public int getSessionCount(String username) {
+        return username == null ? 0 : sessionCounts.getOrDefault(username, 0);
+    }
+
+    /**
+     * Live read-only view of the online users, no copy is made.
+     */
+    public Set<String> getOnlineUsers() {
+        return Collections.unmodifiableSet(sessionCounts.keySet());
+    }
+
+    /**
+     * Online users among the ones sharing an accepted folder with the given user
+     */
+    public List<String> getOnlineContacts(String username) {
+        return findContacts(username).stream()
+            .filter(this::isOnline)
+            .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${presence.flush-interval-ms:2000}")
+    public void flushPresenceChanges() {
+        if (dirtyUsers.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<Map<String, Object>>> changesBySubscriber = new HashMap<>();
+        Iterator<String> iterator = dirtyUsers.iterator();
+        while (iterator.hasNext()) {
+            String username = iterator.next();
+            iterator.remove();
+
+            boolean online = isOnline(username);
+            boolean wasOnline = online ? !publishedOnline.add(username) : !publishedOnline.remove(username);
+            if (online == wasOnline) {
+                continue; // connect/disconnect burst cancelled out
+            }
+
+            Map<String, Object> change = Map.of("user", username, "online", online);
+            for (String contact : findContacts(username)) {
+                if (isOnline(contact)) {
+                    changesBySubscriber.computeIfAbsent(contact, key -> new ArrayList<>()).add(change);
+                }
+            }
+        }
+
+        changesBySubscriber.forEach((subscriber, changes) ->
+            meterRegistry.timer("fileflow.websocket.send", "channel", "presence").record(() ->
+                messagingTemplate.convertAndSendToUser(subscriber, "/queue/presence", changes)));
+    }
+
+    private Set<String> findContacts(String username) {
+        try {
+            Set<String> contacts = new HashSet<>(folderShareRepository.findAcceptedTargetEmailsByOwnerEmail(username));
+            contacts.addAll(folderShareRepository.findAcceptedOwnerEmailsByTargetEmail(username));
+            contacts.remove(username);
+            return contacts;
+        } catch (Exception e) {
+            log.warn("Could not resolve presence contacts for {}: {}", username, e.getMessage());
+            return Set.of();
+        }
+    }
+}
@@ -15,6 +15,7 @@ import com.fileflow.security.CustomUserDetails;
 import com.fileflow.utils.FileUtils;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -27,6 +28,7 @@ import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ProfileService {
 
     private final UserMapper userMapper;
@@ -43,6 +45,7 @@ public class ProfileService {
         dto.setFullName(user.getFirstName() + " " + user.getLastName());
         dto.setStorageUsed(user.getStorageUsed());
         dto.setMaxStorage(user.getMaxStorage());
+        dto.setPlan(user.getPlan());
         dto.setCreatedAt(user.getCreatedAt());
         dto.setUpdatedAt(user.getUpdatedAt());
         return dto;
@@ -117,9 +120,7 @@ public class ProfileService {
         User user = userRepository.findByEmailWithFoldersAndFiles(userDetails.getEmail())
                 .orElseThrow(() -> new UserNotFoundException("Utilisateur introuvable"));
 
-        System.out.println("email inside delete : "+user.getEmail());
-        System.out.println("folders : "+user.getFolders());
-        System.out.println("files : "+user.getFiles());
+        log.debug("Deleting user {} with {} folders and {} files", user.getEmail(), user.getFolders().size(), user.getFiles().size());
         // Supprimer tous les fichiers stockés localement
         for (Folder folder : user.getFolders()) {
             deleteFilesRecursively(folder);
@@ -0,0 +1,286 @@
+package com.fileflow.service;
+
+import com.fileflow.dto.HotspotDTO;
+import com.fileflow.dto.ProfilingRecordingDTO;
+import com.fileflow.dto.ProfilingSummaryDTO;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * On-demand Java Flight Recorder recordings for the admin profiling API.
+ *
+ * A recording runs with one of the JDK's settings profiles ("default" is meant to be
+ * left on in production, "profile" samples more often at a higher cost) and stops by
+ * itself after its duration. Recordings are written under profiling.dir; a running
+ * recording can be downloaded or summarized from a snapshot. Only the last
+ * profiling.retained recordings are kept.
+ */
+@Service
+@Slf4j
+public class ProfilingService {
+
+    private static final String APPLICATION_PACKAGE = "com.fileflow.";
+
+    private final Map<Long, ProfilingSession> sessions = new ConcurrentHashMap<>();
+    // not synchronized: start and delete touch the disk, which would pin a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Value("${profiling.dir:./profiling}")
+    private Path directory;
+
+    @Value("${profiling.default-duration:PT60S}")
+    private Duration defaultDuration;
+
+    @Value("${profiling.max-duration:PT10M}")
+    private Duration maxDuration;
+
+    @Value("${profiling.max-running:1}")
+    private int maxRunning;
+
+    @Value("${profiling.retained:10}")
+    private int retained;
+
+    @Value("${profiling.summary-size:20}")
+    private int summarySize;
+
+    public ProfilingRecordingDTO start(String profile, Duration duration, String startedBy) throws IOException {
+        lock.lock();
+        try {
+            return startLocked(profile, duration, startedBy);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ProfilingRecordingDTO startLocked(String profile, Duration duration, String startedBy) throws IOException {
+        String settings = profile == null || profile.isBlank() ? "default" : profile;
+        Duration requested = duration == null ? defaultDuration : duration;
+        if (requested.isNegative() || requested.isZero() || requested.compareTo(maxDuration) > 0) {
+            throw new IllegalArgumentException("Duration must be between 1s and " + maxDuration);
+        }
+        long running = sessions.values().stream().filter(ProfilingSession::isRunning).count();
+        if (running >= maxRunning) {
+            throw new IllegalStateException("Already " + running + " recording(s) running, stop one first");
+        }
+
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown JFR settings '" + settings + "', available: "
+                + Configuration.getConfigurations().stream().map(Configuration::getName).toList());
+        }
+
+        Files.createDirectories(directory);
+        Recording recording = new Recording(configuration);
+        Path file = directory.resolve("fileflow-" + recording.getId() + ".jfr").toAbsolutePath();
+        recording.setName("fileflow-" + recording.getId());
+        recording.setToDisk(true);
+        recording.setDestination(file); // written when stopped, by hand or after the duration
+        recording.setDuration(requested);
+        recording.start();
+
+        ProfilingSession session = new ProfilingSession(recording, settings, file, startedBy);
+        sessions.put(recording.getId(), session);
+        log.info("JFR recording {} started by {} with settings {} for {}", recording.getId(), startedBy, settings, requested);
+        evictOldRecordings();
+        return session.toDTO();
+    }
+
+    public ProfilingRecordingDTO stop(Long id) {
+        ProfilingSession session = getSession(id);
+        if (session.isRunning()) {
+            session.recording.stop();
+            log.info("JFR recording {} stopped, {} bytes", id, session.size());
+        }
+        return session.toDTO();
+    }
+
+    public List<ProfilingRecordingDTO> list() {
+        return sessions.values().stream()
+            .sorted(Comparator.comparing((ProfilingSession s) -> s.recording.getId()).reversed())
+            .map(ProfilingSession::toDTO)
+            .toList();
+    }
+
+    public void delete(Long id) throws IOException {
+        lock.lock();
+        try {
+            ProfilingSession session = sessions.remove(id);
+            if (session == null) {
+                throw new RuntimeException("Recording not found");
+            }
+            session.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The .jfr of a stopped recording, or a snapshot of a running one. A snapshot is a
+     * temporary file the caller deletes once it has been sent.
+     */
+    public RecordingFileHandle open(Long id) throws IOException {
+        ProfilingSession session = getSession(id);
+        if (!session.isRunning() && Files.exists(session.file)) {
+            return new RecordingFileHandle(session.file, false);
+        }
+        Path snapshot = Files.createTempFile(directory, "fileflow-" + id + "-snapshot-", ".jfr");
+        session.recording.dump(snapshot);
+        return new RecordingFileHandle(snapshot, true);
+    }
+
+    /**
+     * Hottest methods from the execution samples and heaviest allocation sites from the
+     * allocation samples, read in one pass over the recording
+     */
+    public ProfilingSummaryDTO summarize(Long id) throws IOException {
+        RecordingFileHandle handle = open(id);
+        try {
+            Map<String, Long> topFrames = new HashMap<>();
+            Map<String, Long> applicationFrames = new HashMap<>();
+            Map<String, Long> allocationSites = new HashMap<>();
+            long samples = 0;
+            long allocated = 0;
+
+            try (RecordingFile recordingFile = new RecordingFile(handle.path())) {
+                while (recordingFile.hasMoreEvents()) {
+                    RecordedEvent event = recordingFile.readEvent();
+                    String type = event.getEventType().getName();
+                    if ("jdk.ExecutionSample".equals(type)) {
+                        samples++;
+                        List<RecordedFrame> frames = frames(event.getStackTrace());
+                        if (!frames.isEmpty()) {
+                            topFrames.merge(describe(frames.get(0)), 1L, Long::sum);
+                        }
+                        frames.stream()
+                            .filter(frame -> frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE))
+                            .findFirst()
+                            .ifPresent(frame -> applicationFrames.merge(describe(frame), 1L, Long::sum));
+                    } else if ("jdk.ObjectAllocationSample".equals(type)) {
+                        long weight = event.getLong("weight");
+                        allocated += weight;
+                        List<RecordedFrame> frames = frames(event.getStackTrace());
+                        RecordedClass objectClass = event.getClass("objectClass");
+                        String site = (objectClass != null ? objectClass.getName() : "?")
+                            + " at " + (frames.isEmpty() ? "?" : describe(frames.get(0)));
+                        allocationSites.merge(site, weight, Long::sum);
+                    }
+                }
+            }
+
+            return new ProfilingSummaryDTO(id, samples, allocated,
+                top(topFrames, samples), top(applicationFrames, samples), top(allocationSites, allocated));
+        } finally {
+            if (handle.temporary()) {
+                Files.deleteIfExists(handle.path());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sessions.values().forEach(session -> session.recording.close());
+    }
+
+    private ProfilingSession getSession(Long id) {
+        ProfilingSession session = sessions.get(id);
+        if (session == null) {
+            throw new RuntimeException("Recording not found");
+        }
+        return session;
+    }
+
+    private void evictOldRecordings() throws IOException {
+        List<ProfilingSession> stopped = sessions.values().stream()
+            .filter(session -> !session.isRunning())
+            .sorted(Comparator.comparing((ProfilingSession s) -> s.recording.getId()))
+            .collect(Collectors.toCollection(ArrayList::new));
+        while (sessions.size() > retained && !stopped.isEmpty()) {
+            ProfilingSession oldest = stopped.remove(0);
+            sessions.remove(oldest.recording.getId());
+            oldest.close();
+        }
+    }
+
+    private List<HotspotDTO> top(Map<String, Long> weights, long total) {
+        return weights.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+            .limit(summarySize)
+            .map(entry -> new HotspotDTO(entry.getKey(), entry.getValue(),
+                total == 0 ? 0 : Math.round(entry.getValue() * 1000.0 / total) / 10.0))
+            .toList();
+    }
+
+    private static List<RecordedFrame> frames(RecordedStackTrace stackTrace) {
+        return stackTrace == null ? List.of() : stackTrace.getFrames();
+    }
+
+    private static String describe(RecordedFrame frame) {
+        String method = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+        return frame.getLineNumber() > 0 ? method + ":" + frame.getLineNumber() : method;
+    }
+
+    public record RecordingFileHandle(Path path, boolean temporary) {
+    }
+
+    private static class ProfilingSession {
+
+        private final Recording recording;
+        private final String profile;
+        private final Path file;
+        private final String startedBy;
+
+        ProfilingSession(Recording recording, String profile, Path file, String startedBy) {
+            this.recording = recording;
+            this.profile = profile;
+            this.file = file;
+            this.startedBy = startedBy;
+        }
+
+        boolean isRunning() {
+            RecordingState state = recording.getState();
+            return state == RecordingState.NEW || state == RecordingState.DELAYED || state == RecordingState.RUNNING;
+        }
+
+        Long size() {
+            try {
+                return Files.exists(file) ? Files.size(file) : null;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        void close() throws IOException {
+            recording.close();
+            Files.deleteIfExists(file);
+        }
+
+        ProfilingRecordingDTO toDTO() {
+            Duration duration = recording.getDuration();
+            return new ProfilingRecordingDTO(recording.getId(), profile, recording.getState().name(),
+                recording.getStartTime(), duration != null ? duration.toSeconds() : null,
+                isRunning() ? null : size(), startedBy);
+        }
+    }
+}
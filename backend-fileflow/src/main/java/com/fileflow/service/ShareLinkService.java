@@ -0,0 +1,286 @@
+package com.fileflow.service;
+
+import com.fileflow.entity.FileShare;
+import com.fileflow.enums.ResourceType;
+import com.fileflow.enums.UserPlan;
+import com.fileflow.event.ResourceChangeEvent;
+import com.fileflow.exception.ShareFileException;
+import com.fileflow.exception.TooManyRequestsException;
+import com.fileflow.exception.UnauthorizedException;
+import com.fileflow.repository.FileShareRepository;
+import com.fileflow.utils.HmacUtils;
+import com.fileflow.utils.TokenBucket;
+import com.fileflow.utils.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseCookie;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Public share links (FileShare.shareToken) resolved without touching the database on
+ * every hit:
+ *
+ * - tokens are cached for share-links.cache-ttl, unknown or expired ones for
+ *   share-links.negative-ttl, so guessing tokens does not reach the database either
+ * - a password is checked with BCrypt once; the link then gets a signed cookie, valid
+ *   share-links.unlock-ttl, that later requests present instead. Each address gets
+ *   share-links.unlock-attempts per link and share-links.unlock-window, so anonymous
+ *   callers can neither guess passwords nor keep the CPU busy with BCrypt
+ * - accesses are counted in memory by AccessCounterService and flushed in batches
+ *
+ * Revoking a share or changing its file evicts the entry once committed; other instances
+ * see the change within cache-ttl.
+ */
+@Service
+public class ShareLinkService {
+
+    public static final String UNLOCK_COOKIE = "ff_share";
+
+    private final FileShareRepository fileShareRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final AccessCounterService accessCounterService;
+    private final MeterRegistry meterRegistry;
+    private final byte[] signingKey;
+    private final Duration cacheTtl;
+    private final Duration negativeTtl;
+    private final Duration unlockTtl;
+    private final Duration unlockWindow;
+    private final long unlockAttemptCost;
+    private final Map<String, CachedShare> cache;
+    // token|address -> password attempts, dropped once refilled
+    private final Map<String, TokenBucket> unlockAttempts = new ConcurrentHashMap<>();
+
+    public ShareLinkService(FileShareRepository fileShareRepository,
+                            PasswordEncoder passwordEncoder,
+                            AccessCounterService accessCounterService,
+                            MeterRegistry meterRegistry,
+                            @Value("${share-links.signing-key:${jwt.secret}}") String signingKey,
+                            @Value("${share-links.cache-ttl:PT1M}") Duration cacheTtl,
+                            @Value("${share-links.negative-ttl:PT30S}") Duration negativeTtl,
+                            @Value("${share-links.unlock-ttl:PT15M}") Duration unlockTtl,
+                            @Value("${share-links.cache-size:10000}") int cacheSize,
+                            @Value("${share-links.unlock-attempts:5}") int unlockAttempts,
+                            @Value("${share-links.unlock-window:PT1M}") Duration unlockWindow) {
+        this.fileShareRepository = fileShareRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.accessCounterService = accessCounterService;
+        this.meterRegistry = meterRegistry;
+        this.signingKey = signingKey.getBytes(StandardCharsets.UTF_8);
+        this.cacheTtl = cacheTtl;
+        this.negativeTtl = negativeTtl;
+        this.unlockTtl = unlockTtl;
+        // buckets count milliseconds, an attempt costs its share of the window
+        this.unlockWindow = unlockWindow;
+        this.unlockAttemptCost = Math.max(1, unlockWindow.toMillis() / Math.max(1, unlockAttempts));
+        // least recently used first, the coldest links go when the cache is full
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedShare> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * The active, unexpired share of a token, or ShareFileException
+     */
+    public ShareLink resolve(String token) {
+        CachedShare cached;
+        synchronized (cache) {
+            cached = cache.get(token);
+        }
+        if (cached != null && !cached.isStale(cached.link != null ? cacheTtl : negativeTtl)) {
+            meterRegistry.counter("fileflow.share.link.cache", "outcome", cached.link != null ? "hit" : "negative_hit").increment();
+            return check(cached.link);
+        }
+
+        meterRegistry.counter("fileflow.share.link.cache", "outcome", "miss").increment();
+        ShareLink link = fileShareRepository.findActiveShareWithFileByToken(token, LocalDateTime.now())
+            .map(ShareLink::of)
+            .orElse(null);
+        synchronized (cache) {
+            cache.put(token, new CachedShare(link));
+        }
+        return check(link);
+    }
+
+    public boolean isUnlocked(ShareLink link, String cookie) {
+        if (link.passwordHash() == null) {
+            return true;
+        }
+        if (cookie == null || cookie.indexOf('.') < 0) {
+            return false;
+        }
+        String expires = cookie.substring(0, cookie.indexOf('.'));
+        try {
+            if (Long.parseLong(expires) < Instant.now().getEpochSecond()) {
+                return false;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return HmacUtils.verify(signingKey, unlockPayload(link, expires), cookie.substring(cookie.indexOf('.') + 1));
+    }
+
+    /**
+     * Checks the password and returns the cookie that unlocks the link for unlock-ttl. The
+     * cookie is bound to the password hash, so changing the password locks the link again.
+     * TooManyRequestsException when the address used up its attempts on this link.
+     */
+    public ResponseCookie unlock(ShareLink link, String password, boolean secure, String remoteAddress) {
+        if (link.passwordHash() != null) {
+            acquireUnlockAttempt(link, remoteAddress);
+        }
+        checkPassword(link, password);
+        String expires = String.valueOf(Instant.now().plus(unlockTtl).getEpochSecond());
+        return ResponseCookie.from(UNLOCK_COOKIE, expires + "." + HmacUtils.sign(signingKey, unlockPayload(link, expires)))
+            .path("/api/sharing/shared/" + link.token())
+            .maxAge(unlockTtl)
+            .httpOnly(true)
+            .secure(secure)
+            .sameSite("Lax")
+            .build();
+    }
+
+    private void checkPassword(ShareLink link, String password) {
+        if (link.passwordHash() == null) {
+            return;
+        }
+        boolean matches = password != null && passwordEncoder.matches(password, link.passwordHash());
+        meterRegistry.counter("fileflow.share.link.unlock", "outcome", matches ? "unlocked" : "rejected").increment();
+        if (!matches) {
+            throw new UnauthorizedException("Invalid password");
+        }
+    }
+
+    private void acquireUnlockAttempt(ShareLink link, String remoteAddress) {
+        TokenBucket bucket = unlockAttempts.computeIfAbsent(link.token() + "|" + remoteAddress,
+            key -> new TokenBucket(1000, unlockWindow));
+        long wait = bucket.tryAcquire(unlockAttemptCost);
+        if (wait > 0) {
+            meterRegistry.counter("fileflow.share.link.unlock", "outcome", "throttled").increment();
+            throw new TooManyRequestsException("Too many password attempts, try again later",
+                Math.max(1, (wait + 999_999_999) / 1_000_000_000));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${share-links.unlock-window:PT1M}")
+    public void evictUnlockAttempts() {
+        unlockAttempts.values().removeIf(TokenBucket::isFull);
+    }
+
+    public Resource content(ShareLink link) {
+        FileSystemResource resource = new FileSystemResource(link.filePath());
+        if (!resource.exists()) {
+            throw new ShareFileException("File not found");
+        }
+        return resource;
+    }
+
+    /**
+     * Counts a view of the link; visitor identifies who for the unique count, null if unknown
+     */
+    public void recordAccess(ShareLink link, String visitor) {
+        accessCounterService.recordShareAccess(link.shareId(), visitor);
+    }
+
+    /**
+     * Counts a download through the link, for the link and for the file
+     */
+    public void recordDownload(ShareLink link, String visitor) {
+        accessCounterService.recordShareAccess(link.shareId(), visitor);
+        accessCounterService.recordFileAccess(link.fileId(), visitor);
+    }
+
+    public Map<String, Object> describe(ShareLink link) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("fileId", link.fileId());
+        result.put("fileName", link.fileName());
+        result.put("fileSize", link.fileSize());
+        result.put("contentType", link.contentType());
+        result.put("allowDownload", link.allowDownload());
+        result.put("shareType", link.shareType());
+        result.put("passwordProtected", link.passwordHash() != null);
+        return result;
+    }
+
+    /**
+     * Drops the cached token once the current transaction commits
+     */
+    public void evict(String token) {
+        if (token != null) {
+            TransactionUtils.afterCommit(() -> {
+                synchronized (cache) {
+                    cache.remove(token);
+                }
+            });
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onResourceChange(ResourceChangeEvent event) {
+        if (event.getResourceType() != ResourceType.FILE) {
+            return;
+        }
+        // renamed, moved or deleted: the cached name, path or share may be out of date
+        synchronized (cache) {
+            cache.values().removeIf(cached -> cached.link != null && cached.link.fileId().equals(event.getResourceId()));
+        }
+    }
+
+    private static ShareLink check(ShareLink link) {
+        if (link == null || (link.expiresAt() != null && link.expiresAt().isBefore(LocalDateTime.now()))) {
+            throw new ShareFileException("Share not found or expired");
+        }
+        return link;
+    }
+
+    private static String unlockPayload(ShareLink link, String expires) {
+        return "share:" + link.shareId() + ":" + link.token() + ":" + expires + ":" + link.passwordHash();
+    }
+
+    /**
+     * What serving a share link needs, copied out of the entities so it can be cached. The
+     * file's owner is kept so downloads through the link count against their bandwidth limit.
+     */
+    public record ShareLink(Long shareId, String token, Long fileId, Long ownerId, UserPlan ownerPlan,
+                            String filePath, String fileName, String contentType, Long fileSize, String shareType,
+                            Boolean allowDownload, String passwordHash, LocalDateTime expiresAt) {
+
+        static ShareLink of(FileShare share) {
+            return new ShareLink(share.getId(), share.getShareToken(), share.getFile().getId(),
+                share.getFile().getUser().getId(), share.getFile().getUser().getPlan(),
+                share.getFile().getFilePath(), share.getFile().getOriginalFileName(),
+                share.getFile().getContentType(), share.getFile().getFileSize(), share.getShareType(),
+                share.getAllowDownload(), share.getPasswordHash(), share.getExpiresAt());
+        }
+    }
+
+    private static class CachedShare {
+
+        private final ShareLink link; // null: no such active share
+        private final long loadedAt = System.currentTimeMillis();
+
+        CachedShare(ShareLink link) {
+            this.link = link;
+        }
+
+        boolean isStale(Duration ttl) {
+            return System.currentTimeMillis() - loadedAt > ttl.toMillis();
+        }
+    }
+}
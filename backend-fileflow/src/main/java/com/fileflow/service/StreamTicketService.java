@@ -0,0 +1,93 @@
+package com.fileflow.service;
+
+import com.fileflow.dto.StreamTicketDTO;
+import com.fileflow.utils.HmacUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tickets that let a browser EventSource, which cannot send the Authorization header,
+ * open /api/events?ticket=.. . A ticket is signed rather than stored, so any instance
+ * accepts it, expires after events.ticket-ttl and is accepted once per instance: what
+ * ends up in access logs, proxies or browser history is useless by the time it is read,
+ * unlike a JWT in the URL.
+ */
+@Service
+public class StreamTicketService {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecureRandom random = new SecureRandom();
+    private final MeterRegistry meterRegistry;
+    private final byte[] signingKey;
+    private final Duration ttl;
+    // nonce -> expiry second of tickets already used, kept until they expire anyway
+    private final Map<String, Long> redeemed = new ConcurrentHashMap<>();
+
+    public StreamTicketService(MeterRegistry meterRegistry,
+                               @Value("${events.ticket-signing-key:${jwt.secret}}") String signingKey,
+                               @Value("${events.ticket-ttl:PT30S}") Duration ttl) {
+        this.meterRegistry = meterRegistry;
+        this.signingKey = signingKey.getBytes(StandardCharsets.UTF_8);
+        this.ttl = ttl;
+    }
+
+    public StreamTicketDTO issue(String username) {
+        byte[] nonce = new byte[16];
+        random.nextBytes(nonce);
+        long expires = Instant.now().plus(ttl).getEpochSecond();
+        String payload = ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8))
+            + "." + expires + "." + ENCODER.encodeToString(nonce);
+        meterRegistry.counter("fileflow.events.ticket", "outcome", "issued").increment();
+        return new StreamTicketDTO(payload + "." + HmacUtils.sign(signingKey, "events:" + payload),
+            LocalDateTime.ofInstant(Instant.ofEpochSecond(expires), ZoneId.systemDefault()));
+    }
+
+    /**
+     * The user a ticket was issued to, or null when it is malformed, forged, expired or
+     * was used before
+     */
+    public String redeem(String ticket) {
+        String[] parts = ticket != null ? ticket.split("\\.") : new String[0];
+        if (parts.length != 4) {
+            return reject("rejected");
+        }
+        String payload = parts[0] + "." + parts[1] + "." + parts[2];
+        if (!HmacUtils.verify(signingKey, "events:" + payload, parts[3])) {
+            return reject("rejected");
+        }
+        long expires;
+        try {
+            expires = Long.parseLong(parts[1]);
+        } catch (NumberFormatException e) {
+            return reject("rejected");
+        }
+        long now = Instant.now().getEpochSecond();
+        if (expires < now) {
+            return reject("expired");
+        }
+        redeemed.values().removeIf(expiry -> expiry < now);
+        if (redeemed.putIfAbsent(parts[2], expires) != null) {
+            return reject("reused");
+        }
+        meterRegistry.counter("fileflow.events.ticket", "outcome", "redeemed").increment();
+        return new String(DECODER.decode(parts[0]), StandardCharsets.UTF_8);
+    }
+
+    private String reject(String outcome) {
+        meterRegistry.counter("fileflow.events.ticket", "outcome", outcome).increment();
+        return null;
+    }
+}
@@ -0,0 +1,295 @@
+package com.fileflow.service;
+
+import com.fileflow.entity.User;
+import com.fileflow.enums.TransferDirection;
+import com.fileflow.enums.UserPlan;
+import com.fileflow.exception.TooManyRequestsException;
+import com.fileflow.utils.ThrottledInputStream;
+import com.fileflow.utils.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user and global token buckets, so one user running a sync script cannot take all
+ * the disk and network bandwidth or request capacity.
+ *
+ * - requests per second: checked once per API call, over the limit gets 429 (RateLimitFilter)
+ * - upload/download bytes per second: charged inside the copy loop of each transfer,
+ *   which slows down to the allowed rate rather than failing
+ *
+ * Limits come from the user's plan (throttling.plans.free|pro|business.*), a limit of 0
+ * means unlimited. A transfer is held to both the user's and the global rate. Buckets are
+ * lock-free; a user's buckets are dropped once full again, which loses nothing.
+ */
+@Service
+public class ThrottlingService {
+
+    private final boolean enabled;
+    private final Duration burst;
+    private final Map<UserPlan, Limits> plans = new EnumMap<>(UserPlan.class);
+    private final Buckets global;
+    private final Map<Long, Buckets> users = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Map<TransferDirection, Counter> delays = new EnumMap<>(TransferDirection.class);
+
+    public ThrottlingService(Environment environment, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = environment.getProperty("throttling.enabled", Boolean.class, true);
+        this.burst = environment.getProperty("throttling.burst", Duration.class, Duration.ofSeconds(2));
+
+        plans.put(UserPlan.FREE, limits(environment, "plans.free", 20, DataSize.ofMegabytes(5), DataSize.ofMegabytes(10)));
+        plans.put(UserPlan.PRO, limits(environment, "plans.pro", 100, DataSize.ofMegabytes(50), DataSize.ofMegabytes(100)));
+        plans.put(UserPlan.BUSINESS, limits(environment, "plans.business", 500, DataSize.ofBytes(0), DataSize.ofBytes(0)));
+        this.global = new Buckets(null,
+            limits(environment, "global", 2000, DataSize.ofMegabytes(200), DataSize.ofMegabytes(400)), burst);
+
+        for (TransferDirection direction : TransferDirection.values()) {
+            delays.put(direction, Counter.builder("fileflow.throttle.delay")
+                .tag("direction", direction.name().toLowerCase())
+                .baseUnit("seconds")
+                .description("Time transfers were slowed down by bandwidth limits")
+                .register(meterRegistry));
+        }
+        Gauge.builder("fileflow.throttle.users", users, Map::size)
+            .description("Users with throttling buckets in use")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Takes one request token for the user, or throws TooManyRequestsException
+     */
+    public void acquireRequest(User user) {
+        if (!enabled || user == null) {
+            return;
+        }
+        Buckets buckets = buckets(user);
+        long wait = tryAcquire(buckets.requests);
+        String scope = "user";
+        if (wait == 0) {
+            wait = tryAcquire(global.requests);
+            scope = "global";
+        }
+        if (wait > 0) {
+            meterRegistry.counter("fileflow.throttle.rejected",
+                "plan", buckets.plan.name().toLowerCase(), "scope", scope).increment();
+            throw new TooManyRequestsException("Too many requests, please slow down",
+                Math.max(1, (wait + 999_999_999) / 1_000_000_000));
+        }
+    }
+
+    /**
+     * The limit of the user's plan for X-RateLimit-Limit, 0 when unlimited
+     */
+    public long requestLimit(User user) {
+        TokenBucket bucket = enabled && user != null ? buckets(user).requests : null;
+        return bucket != null ? bucket.getRatePerSecond() : 0;
+    }
+
+    /**
+     * Whether the user's transfers in this direction have a bandwidth limit
+     */
+    public boolean isThrottled(User user, TransferDirection direction) {
+        return user != null && isThrottled(user.getId(), user.getPlan(), direction);
+    }
+
+    private boolean isThrottled(Long userId, UserPlan plan, TransferDirection direction) {
+        return enabled && (buckets(userId, plan).bytes(direction) != null || global.bytes(direction) != null);
+    }
+
+    /**
+     * A stream read at the user's rate for the direction
+     */
+    public InputStream throttle(InputStream in, User user, TransferDirection direction) {
+        return user != null ? throttle(in, user.getId(), user.getPlan(), direction) : in;
+    }
+
+    private InputStream throttle(InputStream in, Long userId, UserPlan plan, TransferDirection direction) {
+        if (!isThrottled(userId, plan, direction)) {
+            return in;
+        }
+        Buckets buckets = buckets(userId, plan);
+        return new ThrottledInputStream(in, bytes -> delay(buckets, direction, bytes));
+    }
+
+    /**
+     * A download resource whose content is read at the user's download rate
+     */
+    public Resource throttle(Resource resource, User user) {
+        return user != null ? throttle(resource, user.getId(), user.getPlan()) : resource;
+    }
+
+    /**
+     * Same, for downloads made without the user's session (signed URLs) but charged to them
+     */
+    public Resource throttle(Resource resource, Long userId, UserPlan plan) {
+        return enabled && userId != null ? new ThrottledResource(resource, this, userId, plan) : resource;
+    }
+
+    /**
+     * Delays each buffer of a reactive transfer until the user may send it. One buffer is
+     * in flight at a time, so the delay holds back reads from the socket or the disk.
+     */
+    public Flux<DataBuffer> throttle(Flux<DataBuffer> body, User user, TransferDirection direction) {
+        if (!isThrottled(user, direction)) {
+            return body;
+        }
+        Buckets buckets = buckets(user);
+        return body
+            .concatMap(buffer -> {
+                long wait = delay(buckets, direction, buffer.readableByteCount());
+                return wait == 0 ? Mono.just(buffer) : Mono.delay(Duration.ofNanos(wait))
+                    .map(tick -> buffer)
+                    .doOnCancel(() -> DataBufferUtils.release(buffer));
+            }, 1)
+            .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    @Scheduled(fixedDelayString = "${throttling.eviction-interval:PT1M}")
+    public void evictIdleUsers() {
+        users.values().removeIf(Buckets::isFull);
+    }
+
+    private long delay(Buckets buckets, TransferDirection direction, long bytes) {
+        long wait = Math.max(reserve(buckets.bytes(direction), bytes), reserve(global.bytes(direction), bytes));
+        if (wait > 0) {
+            delays.get(direction).increment(wait / 1_000_000_000d);
+        }
+        return wait;
+    }
+
+    private Buckets buckets(User user) {
+        return buckets(user.getId(), user.getPlan());
+    }
+
+    private Buckets buckets(Long userId, UserPlan userPlan) {
+        UserPlan plan = userPlan != null ? userPlan : UserPlan.FREE;
+        Buckets buckets = users.get(userId);
+        if (buckets != null && buckets.plan == plan) {
+            return buckets;
+        }
+        // first call for the user, or their plan changed
+        return users.compute(userId, (id, existing) ->
+            existing != null && existing.plan == plan ? existing : new Buckets(plan, plans.get(plan), burst));
+    }
+
+    private static long tryAcquire(TokenBucket bucket) {
+        return bucket != null ? bucket.tryAcquire(1) : 0;
+    }
+
+    private static long reserve(TokenBucket bucket, long bytes) {
+        return bucket != null ? bucket.reserve(bytes) : 0;
+    }
+
+    private static Limits limits(Environment environment, String name, long requestsPerSecond,
+                                 DataSize uploadPerSecond, DataSize downloadPerSecond) {
+        String prefix = "throttling." + name + ".";
+        return new Limits(
+            environment.getProperty(prefix + "requests-per-second", Long.class, requestsPerSecond),
+            environment.getProperty(prefix + "upload-bytes-per-second", DataSize.class, uploadPerSecond).toBytes(),
+            environment.getProperty(prefix + "download-bytes-per-second", DataSize.class, downloadPerSecond).toBytes());
+    }
+
+    private record Limits(long requestsPerSecond, long uploadBytesPerSecond, long downloadBytesPerSecond) {
+    }
+
+    private static class Buckets {
+
+        private final UserPlan plan;
+        private final TokenBucket requests;
+        private final TokenBucket upload;
+        private final TokenBucket download;
+
+        Buckets(UserPlan plan, Limits limits, Duration burst) {
+            this.plan = plan;
+            this.requests = bucket(limits.requestsPerSecond(), burst);
+            this.upload = bucket(limits.uploadBytesPerSecond(), burst);
+            this.download = bucket(limits.downloadBytesPerSecond(), burst);
+        }
+
+        TokenBucket bytes(TransferDirection direction) {
+            return direction == TransferDirection.UPLOAD ? upload : download;
+        }
+
+        boolean isFull() {
+            return (requests == null || requests.isFull())
+                && (upload == null || upload.isFull())
+                && (download == null || download.isFull());
+        }
+
+        private static TokenBucket bucket(long ratePerSecond, Duration burst) {
+            return ratePerSecond > 0 ? new TokenBucket(ratePerSecond, burst) : null;
+        }
+    }
+
+    /**
+     * Everything from the stored file except the content stream, which is throttled; ranges
+     * still work since skipped bytes are not charged
+     */
+    private static class ThrottledResource extends AbstractResource {
+
+        private final Resource resource;
+        private final ThrottlingService throttling;
+        private final Long userId;
+        private final UserPlan plan;
+
+        ThrottledResource(Resource resource, ThrottlingService throttling, Long userId, UserPlan plan) {
+            this.resource = resource;
+            this.throttling = throttling;
+            this.userId = userId;
+            this.plan = plan;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return throttling.throttle(resource.getInputStream(), userId, plan, TransferDirection.DOWNLOAD);
+        }
+
+        @Override
+        public boolean exists() {
+            return resource.exists();
+        }
+
+        @Override
+        public boolean isReadable() {
+            return resource.isReadable();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return resource.contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return resource.lastModified();
+        }
+
+        @Override
+        public String getFilename() {
+            return resource.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return "throttled " + resource.getDescription();
+        }
+    }
+}
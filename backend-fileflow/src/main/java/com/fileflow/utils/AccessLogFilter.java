@@ -0,0 +1,81 @@
+package com.fileflow.utils;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static net.logstash.logback.marker.Markers.appendEntries;
+
+/**
+ * One access log event per request on the "fileflow.access" logger, with the fields as
+ * a structured marker so the prod JSON encoder writes them as JSON properties (trace
+ * and span ids come from the MDC). Successful fast requests are logged at INFO and can
+ * be sampled in logback-spring.xml; errors and requests slower than
+ * access-log.slow-threshold are logged at WARN and always kept.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@ConditionalOnProperty(name = "access-log.enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final Logger accessLog = LoggerFactory.getLogger("fileflow.access");
+
+    @Value("${access-log.slow-threshold:PT1S}")
+    private Duration slowThreshold;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        long started = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long durationMs = (System.nanoTime() - started) / 1_000_000;
+            int status = response.getStatus();
+            boolean keep = status >= 500 || durationMs >= slowThreshold.toMillis();
+            if (keep ? accessLog.isWarnEnabled() : accessLog.isInfoEnabled()) {
+                log(request, status, durationMs, keep);
+            }
+        }
+    }
+
+    private void log(HttpServletRequest request, int status, long durationMs, boolean warn) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("http.method", request.getMethod());
+        fields.put("http.path", request.getRequestURI());
+        fields.put("http.route", pattern != null ? pattern.toString() : null);
+        fields.put("http.status", status);
+        fields.put("duration_ms", durationMs);
+        fields.put("client.address", request.getRemoteAddr());
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats != null) {
+            fields.put("db.statements", stats.getStatements());
+            fields.put("db.rows", stats.getRows());
+        }
+
+        String format = "{} {} {} {}ms";
+        if (warn) {
+            accessLog.warn(appendEntries(fields), format, request.getMethod(), request.getRequestURI(), status, durationMs);
+        } else {
+            accessLog.info(appendEntries(fields), format, request.getMethod(), request.getRequestURI(), status, durationMs);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.fileflow.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control: every /api request belongs to one endpoint class (upload, download,
+ * bulk, auth or metadata) with its own concurrency limit and wait queue, so a burst of
+ * large uploads cannot take all the Tomcat threads and pooled connections that folder
+ * browsing needs.
+ *
+ * Only the classes that hold a connection for long (upload, bulk) are sized from the
+ * pool. Downloads stream from storage without one and may be slowed down to the plan's
+ * byte rate, so their limit is sized from the request threads and file descriptors.
+ *
+ * A request runs if its class has a free slot. Otherwise it waits up to
+ * bulkheads.queue-timeout, unless max-queue requests are already waiting. A request
+ * that cannot get a slot gets 503 with Retry-After straight away, rather than timing out
+ * later.
+ *
+ * Paths are Ant patterns, optionally prefixed with a method ("POST /api/jobs"); the first
+ * class with a matching pattern wins and anything else under /api is metadata. Event
+ * streams and WebSockets hold their connection for minutes and are not limited here.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 30)
+@ConditionalOnProperty(name = "bulkheads.enabled", havingValue = "true", matchIfMissing = true)
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private static final List<String> EXCLUDED = List.of("/api/events/**", "/api/transfer/**");
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final List<Bulkhead> bulkheads = new ArrayList<>();
+    private final Bulkhead metadata;
+    private final Duration queueTimeout;
+    private final String retryAfter;
+
+    public BulkheadFilter(Environment environment, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.queueTimeout = environment.getProperty("bulkheads.queue-timeout", Duration.class, Duration.ofSeconds(1));
+        this.retryAfter = environment.getProperty("bulkheads.retry-after", "1");
+
+        bulkheads.add(bulkhead(environment, "upload", 6, 20,
+            "POST /api/files/upload"));
+        bulkheads.add(bulkhead(environment, "download", 64, 64,
+            "GET /api/files/*/download,GET /api/sharing/shared/*/content,GET /api/direct/*"));
+        bulkheads.add(bulkhead(environment, "bulk", 2, 8,
+            "/api/files/bulk/**,/api/folders/bulk/**,POST /api/folders/*/copy,POST /api/jobs"));
+        bulkheads.add(bulkhead(environment, "auth", 10, 20,
+            "/api/auth/**"));
+        this.metadata = bulkhead(environment, "metadata", 100, 100, "/api/**");
+        bulkheads.add(metadata);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = path(request);
+        return !path.startsWith("/api/") || EXCLUDED.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Bulkhead bulkhead = classify(request);
+        String rejection = bulkhead.acquire(queueTimeout);
+        if (rejection != null) {
+            meterRegistry.counter("fileflow.bulkhead.rejected", "class", bulkhead.name, "reason", rejection).increment();
+            log.debug("{} {} rejected by the {} bulkhead: {}", request.getMethod(), request.getRequestURI(), bulkhead.name, rejection);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                ApiResponse.error("The server is busy with " + bulkhead.name + " requests, please retry shortly"));
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private Bulkhead classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = path(request);
+        for (Bulkhead bulkhead : bulkheads) {
+            for (String pattern : bulkhead.patterns) {
+                int space = pattern.indexOf(' ');
+                if (space > 0 && !pattern.substring(0, space).equalsIgnoreCase(method)) {
+                    continue;
+                }
+                if (pathMatcher.match(space > 0 ? pattern.substring(space + 1) : pattern, path)) {
+                    return bulkhead;
+                }
+            }
+        }
+        return metadata;
+    }
+
+    private Bulkhead bulkhead(Environment environment, String name, int maxConcurrent, int maxQueue, String paths) {
+        String prefix = "bulkheads." + name + ".";
+        Bulkhead bulkhead = new Bulkhead(name,
+            environment.getProperty(prefix + "max-concurrent", Integer.class, maxConcurrent),
+            environment.getProperty(prefix + "max-queue", Integer.class, maxQueue),
+            Arrays.stream(environment.getProperty(prefix + "paths", paths).split(",")).map(String::trim).toList());
+
+        Gauge.builder("fileflow.bulkhead.limit", bulkhead, b -> b.maxConcurrent)
+            .tag("class", name).description("Concurrent requests allowed").register(meterRegistry);
+        Gauge.builder("fileflow.bulkhead.active", bulkhead, b -> b.maxConcurrent - b.permits.availablePermits())
+            .tag("class", name).description("Requests running").register(meterRegistry);
+        Gauge.builder("fileflow.bulkhead.queued", bulkhead, b -> b.queued.get())
+            .tag("class", name).description("Requests waiting for a slot").register(meterRegistry);
+        bulkhead.waitTimer = Timer.builder("fileflow.bulkhead.wait")
+            .tag("class", name).description("Time waited for a slot").register(meterRegistry);
+        return bulkhead;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static class Bulkhead {
+
+        private final String name;
+        private final int maxConcurrent;
+        private final int maxQueue;
+        private final List<String> patterns;
+        private final Semaphore permits;
+        private final AtomicInteger queued = new AtomicInteger();
+        private Timer waitTimer;
+
+        Bulkhead(String name, int maxConcurrent, int maxQueue, List<String> patterns) {
+            this.name = name;
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueue = maxQueue;
+            this.patterns = patterns;
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+
+        /**
+         * Takes a slot, or returns why not: "queue_full" or "timeout"
+         */
+        String acquire(Duration timeout) {
+            if (permits.tryAcquire()) {
+                return null;
+            }
+            if (queued.incrementAndGet() > maxQueue) {
+                queued.decrementAndGet();
+                return "queue_full";
+            }
+            long started = System.nanoTime();
+            try {
+                return permits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS) ? null : "timeout";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "timeout";
+            } finally {
+                queued.decrementAndGet();
+                waitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        void release() {
+            permits.release();
+        }
+    }
+}
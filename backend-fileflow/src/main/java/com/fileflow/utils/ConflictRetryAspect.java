@@ -0,0 +1,52 @@
+package com.fileflow.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Retries @RetryOnConflict methods that failed on a stale @Version. Each attempt runs
+ * in a new transaction and reloads the entities; a request with If-Match then gets
+ * 412 from the version check instead of overwriting the other change.
+ *
+ * Ordered outside UserLockAspect and the transaction. A call already inside a
+ * transaction is not retried, its transaction is rolled back anyway.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(-1)
+public class ConflictRetryAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    public ConflictRetryAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        String method = joinPoint.getSignature().toShortString();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= retryOnConflict.attempts()) {
+                    meterRegistry.counter("fileflow.conflict", "method", method, "outcome", "failed").increment();
+                    throw e;
+                }
+                meterRegistry.counter("fileflow.conflict", "method", method, "outcome", "retried").increment();
+                log.debug("{} lost an optimistic locking race, attempt {}", method, attempt);
+            }
+        }
+    }
+}
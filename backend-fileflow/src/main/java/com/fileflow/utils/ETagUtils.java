@@ -0,0 +1,48 @@
+package com.fileflow.utils;
+
+import com.fileflow.exception.PreconditionFailedException;
+
+/**
+ * ETags of files and folders are their @Version, e.g. "3". A client sends it back in
+ * If-Match to make its change conditional: it fails with 412 if someone else changed
+ * the resource in between.
+ */
+public final class ETagUtils {
+
+    private ETagUtils() {
+    }
+
+    public static String of(Long version) {
+        return "\"" + (version != null ? version : 0) + "\"";
+    }
+
+    /**
+     * The version required by an If-Match header, null when absent or "*"
+     */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            // If-Match uses the strong comparison, a weak tag never matches
+            throw new PreconditionFailedException("Weak ETags cannot be used in If-Match");
+        }
+        try {
+            return Long.valueOf(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("Unknown ETag " + tag);
+        }
+    }
+
+    /**
+     * Throws PreconditionFailedException unless the expected version is absent or current
+     */
+    public static void checkVersion(Long expectedVersion, Long currentVersion) {
+        long current = currentVersion != null ? currentVersion : 0;
+        if (expectedVersion != null && expectedVersion != current) {
+            throw new PreconditionFailedException("The resource was modified (version " + current
+                + ", expected " + expectedVersion + "), reload it and try again");
+        }
+    }
+}
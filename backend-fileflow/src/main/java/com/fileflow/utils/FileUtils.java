@@ -1,7 +1,10 @@
 package com.fileflow.utils;
 
+import lombok.extern.slf4j.Slf4j;
+
 import java.io.File;
 
+@Slf4j
 public class FileUtils {
     public static void deleteFile(String path) {
         try {
@@ -10,7 +13,7 @@ public class FileUtils {
                 file.delete();
             }
         } catch (Exception e) {
-            System.err.println("Error deleting file: " + path + " → " + e.getMessage());
+            log.warn("Error deleting file: {} → {}", path, e.getMessage());
         }
     }
 }
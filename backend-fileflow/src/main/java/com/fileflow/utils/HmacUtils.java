@@ -0,0 +1,43 @@
+package com.fileflow.utils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * HMAC-SHA256 signatures for values handed to clients and checked when they come
+ * back (share link cookies), URL-safe base64 without padding.
+ */
+public final class HmacUtils {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private HmacUtils() {
+    }
+
+    public static String sign(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    /**
+     * Constant-time comparison, so the time taken does not tell how much of a forged
+     * signature was right
+     */
+    public static boolean verify(byte[] key, String data, String signature) {
+        if (signature == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(key, data).getBytes(StandardCharsets.US_ASCII),
+            signature.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,118 @@
+package com.fileflow.utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Approximate distinct count (HyperLogLog) in 1024 one-byte registers, about 3% standard
+ * error whatever the count. Sketches merge by taking the larger register, so per-interval
+ * sketches can be folded into the one stored in the database.
+ *
+ * add() is lock-free: a register is only written, with a compare-and-set, when the new
+ * rank is larger, which for a repeat visitor never happens.
+ */
+public final class HyperLogLog {
+
+    public static final int REGISTERS = 1 << 10;
+
+    private static final int INDEX_BITS = 10;
+    private static final VarHandle REGISTER = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    /**
+     * A sketch from toBytes(), or an empty one for null or a sketch of another size
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        return bytes != null && bytes.length == REGISTERS ? new HyperLogLog(bytes.clone()) : new HyperLogLog();
+    }
+
+    public void add(String value) {
+        addHash(hash(value));
+    }
+
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - INDEX_BITS));
+        // position of the first 1 bit in the remaining 54 bits, 55 when they are all 0
+        byte rank = (byte) (Math.min(Long.numberOfLeadingZeros(hash << INDEX_BITS), 64 - INDEX_BITS) + 1);
+        byte current = (byte) REGISTER.getVolatile(registers, index);
+        while (rank > current) {
+            if (REGISTER.compareAndSet(registers, index, current, rank)) {
+                return;
+            }
+            current = (byte) REGISTER.getVolatile(registers, index);
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            byte rank = (byte) REGISTER.getVolatile(other.registers, i);
+            byte current = (byte) REGISTER.getVolatile(registers, i);
+            while (rank > current && !REGISTER.compareAndSet(registers, i, current, rank)) {
+                current = (byte) REGISTER.getVolatile(registers, i);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        for (int i = 0; i < REGISTERS; i++) {
+            if ((byte) REGISTER.getVolatile(registers, i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < REGISTERS; i++) {
+            byte rank = (byte) REGISTER.getVolatile(registers, i);
+            sum += Math.scalb(1.0, -rank);
+            if (rank == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // small counts: linear counting is more accurate
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public byte[] toBytes() {
+        byte[] copy = new byte[REGISTERS];
+        for (int i = 0; i < REGISTERS; i++) {
+            copy[i] = (byte) REGISTER.getVolatile(registers, i);
+        }
+        return copy;
+    }
+
+    /**
+     * 64-bit FNV-1a with the MurmurHash3 finalizer, so every bit depends on the whole value
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,379 @@
+package com.fileflow.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Idempotency-Key support for the endpoints in idempotency.paths (uploads, bulk
+ * operations, shares). The first request with a key runs normally and its response
+ * is kept; a retry with the same key, by the same user, gets that response back with
+ * Idempotent-Replayed: true instead of uploading or copying a second time.
+ *
+ * - a retry arriving while the first request still runs gets 409 and Retry-After
+ * - the same key on a different method, path or body gets 422; the body is compared by its
+ *   SHA-256, over the parts of a multipart upload (already spooled by the container) and
+ *   over the raw bytes otherwise
+ * - only 2xx and the 409, 412 and 422 a retry would get again are kept; other errors,
+ *   such as 5xx or 429, are forgotten so the client can retry them for real
+ *
+ * Keys live in memory, bounded by idempotency.max-entries, idempotency.max-total-size
+ * (the kept bodies) and idempotency.ttl, and are not shared between instances. Runs
+ * after Spring Security, keys are scoped per user.
+ */
+@Slf4j
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final List<String> KEPT_HEADERS = List.of(HttpHeaders.LOCATION, HttpHeaders.ETAG);
+    private static final Set<Integer> KEPT_ERRORS = Set.of(409, 412, 422);
+    private static final int ENTRY_OVERHEAD = 256; // key, fingerprint, headers and the map entry
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final List<String> paths;
+    private final Duration ttl;
+    private final int maxResponseSize;
+    private final int maxEntries;
+    private final long maxTotalSize;
+    private final LinkedHashMap<String, Entry> entries;
+    private long totalSize; // guarded by entries
+
+    public IdempotencyFilter(ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${idempotency.paths:/api/files/upload,/api/files/bulk/**,/api/folders/bulk/**,/api/folders/*/copy,/api/jobs,/api/file/share/**,/api/folders/*/share,/api/folders/shares/*/respond}") List<String> paths,
+                             @Value("${idempotency.ttl:PT24H}") Duration ttl,
+                             @Value("${idempotency.max-entries:10000}") int maxEntries,
+                             @Value("${idempotency.max-response-size:65536}") int maxResponseSize,
+                             @Value("${idempotency.max-total-size:32MB}") DataSize maxTotalSize) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.paths = paths;
+        this.ttl = ttl;
+        this.maxResponseSize = maxResponseSize;
+        this.maxEntries = maxEntries;
+        this.maxTotalSize = maxTotalSize.toBytes();
+        // least recently used first, the oldest keys go when the store is full
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String method = request.getMethod();
+        if (request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+            || !("POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method))) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return paths.stream().noneMatch(pattern -> pathMatcher.match(pattern.trim(), path));
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters", "invalid");
+            return;
+        }
+
+        MessageDigest digest = sha256();
+        try {
+            request = digestBody(request, digest);
+        } catch (IOException | ServletException | IllegalStateException e) {
+            // unreadable or oversized multipart body: let the controller report it as usual
+            log.debug("Idempotency-Key ignored, body of {} {} not readable: {}", request.getMethod(), request.getRequestURI(), e.getMessage());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String storeKey = authentication.getName() + ":" + key;
+        String fingerprint = request.getMethod() + " " + request.getRequestURI()
+            + (request.getQueryString() != null ? "?" + request.getQueryString() : "")
+            + " " + HexFormat.of().formatHex(digest.digest());
+
+        Entry entry;
+        Entry previous;
+        synchronized (entries) {
+            previous = entries.get(storeKey);
+            if (previous != null && previous.isExpired(ttl)) {
+                remove(storeKey);
+                previous = null;
+            }
+            entry = previous;
+            if (previous == null) {
+                entry = new Entry(fingerprint);
+                entries.put(storeKey, entry);
+                evict();
+            }
+        }
+
+        if (previous != null) {
+            if (!previous.fingerprint.equals(fingerprint)) {
+                reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key already used for a different request", "mismatch");
+            } else if (previous.status == 0) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                reject(response, HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still being processed", "in_progress");
+            } else {
+                replay(response, previous);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper caching = new ContentCachingResponseWrapper(response);
+        boolean kept = false;
+        try {
+            filterChain.doFilter(request, caching);
+            kept = keep(storeKey, entry, caching);
+        } finally {
+            if (!kept) {
+                synchronized (entries) {
+                    if (entries.get(storeKey) == entry) {
+                        remove(storeKey);
+                    }
+                }
+            }
+            caching.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Feeds the request body to the digest and returns a request the controller can still
+     * read it from: multipart parts stay with the container, form parameters are parsed
+     * first, and any other body is read into memory and served again by a wrapper
+     */
+    private static HttpServletRequest digestBody(HttpServletRequest request, MessageDigest digest) throws IOException, ServletException {
+        String contentType = request.getContentType() != null ? request.getContentType().toLowerCase() : "";
+        if (contentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE)) {
+            for (Part part : request.getParts()) {
+                digest.update((part.getName() + "\n" + part.getSubmittedFileName() + "\n" + part.getSize() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = new DigestInputStream(part.getInputStream(), digest)) {
+                    in.transferTo(OutputStream.nullOutputStream());
+                }
+            }
+            return request;
+        }
+        if (contentType.startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE)) {
+            new TreeMap<>(request.getParameterMap()).forEach((name, values) ->
+                digest.update((name + "=" + String.join(",", values) + "\n").getBytes(StandardCharsets.UTF_8)));
+            return request;
+        }
+        byte[] body = request.getInputStream().readAllBytes();
+        digest.update(body);
+        return new CachedBodyRequest(request, body);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Records the response on the entry unless a retry could get a different one, or it is
+     * too large to keep
+     */
+    private boolean keep(String storeKey, Entry entry, ContentCachingResponseWrapper response) {
+        int status = response.getStatus();
+        byte[] body = response.getContentAsByteArray();
+        boolean deterministic = (status >= 200 && status < 300) || KEPT_ERRORS.contains(status);
+        if (!deterministic || body.length > maxResponseSize) {
+            meterRegistry.counter("fileflow.idempotency", "outcome", "not_kept").increment();
+            return false;
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        KEPT_HEADERS.forEach(name -> {
+            String value = response.getHeader(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        });
+        synchronized (entries) {
+            entry.complete(status, response.getContentType(), headers, body);
+            // an entry pushed out while its request ran is not counted
+            if (entries.get(storeKey) == entry) {
+                totalSize += entry.size();
+                evict();
+            }
+        }
+        meterRegistry.counter("fileflow.idempotency", "outcome", "stored").increment();
+        return true;
+    }
+
+    /**
+     * Drops the least recently used keys until the store is within max-entries and
+     * max-total-size. Callers hold the entries lock.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalSize > maxTotalSize) && eldest.hasNext()) {
+            totalSize -= eldest.next().getValue().size();
+            eldest.remove();
+        }
+    }
+
+    private void remove(String storeKey) {
+        Entry removed = entries.remove(storeKey);
+        if (removed != null) {
+            totalSize -= removed.size();
+        }
+    }
+
+    private void replay(HttpServletResponse response, Entry entry) throws IOException {
+        meterRegistry.counter("fileflow.idempotency", "outcome", "replayed").increment();
+        response.setStatus(entry.status);
+        if (entry.contentType != null) {
+            response.setContentType(entry.contentType);
+        }
+        entry.headers.forEach(response::setHeader);
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(entry.body.length);
+        response.getOutputStream().write(entry.body);
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message, String outcome) throws IOException {
+        meterRegistry.counter("fileflow.idempotency", "outcome", outcome).increment();
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(message));
+    }
+
+    /**
+     * Serves a body that was already read from the request
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+    }
+
+    private static class Entry {
+
+        private final String fingerprint;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile int status; // 0 while the first request runs
+        private String contentType;
+        private Map<String, String> headers;
+        private byte[] body;
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        void complete(int status, String contentType, Map<String, String> headers, byte[] body) {
+            this.contentType = contentType;
+            this.headers = headers;
+            this.body = body;
+            this.status = status; // last, publishes the fields above
+        }
+
+        /**
+         * Bytes counted against max-total-size, nothing until the response is kept
+         */
+        long size() {
+            return status == 0 ? 0 : ENTRY_OVERHEAD + body.length;
+        }
+
+        boolean isExpired(Duration ttl) {
+            return System.currentTimeMillis() - createdAt > ttl.toMillis();
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.fileflow.utils;
 
+import com.fileflow.repository.UserRepository;
 import com.fileflow.security.JwtUtil;
+import com.fileflow.service.FolderChangeFeedService;
+import com.fileflow.service.FolderShareService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
@@ -11,6 +16,7 @@ import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Component;
 
+import java.security.Principal;
 import java.util.List;
 
 @Component
@@ -19,6 +25,14 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
     @Autowired
     private JwtUtil jwtUtils;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    // lazy: the share service reaches the message broker, which is configured with this interceptor
+    @Autowired
+    @Lazy
+    private FolderShareService folderShareService;
+
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
@@ -34,6 +48,38 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
             }
         }
 
+        if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            String destination = accessor.getDestination();
+            if (destination != null && destination.startsWith(FolderChangeFeedService.FOLDER_TOPIC_PREFIX)) {
+                checkFolderSubscription(accessor.getUser(), destination);
+            }
+        }
+
         return message;
     }
+
+    /**
+     * Only the owner of a folder or a user with an accepted share on it, or on a parent
+     * folder, may follow its change feed
+     */
+    private void checkFolderSubscription(Principal principal, String destination) {
+        if (principal == null) {
+            throw new MessageDeliveryException("Authentication required to subscribe to " + destination);
+        }
+
+        Long folderId;
+        try {
+            folderId = Long.valueOf(destination.substring(FolderChangeFeedService.FOLDER_TOPIC_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new MessageDeliveryException("Invalid folder destination " + destination);
+        }
+
+        Long userId = userRepository.findByEmail(principal.getName())
+            .orElseThrow(() -> new MessageDeliveryException("User not found"))
+            .getId();
+
+        if (!folderShareService.hasAccessToFolder(folderId, userId)) {
+            throw new MessageDeliveryException("Access denied to folder " + folderId);
+        }
+    }
 }
@@ -0,0 +1,69 @@
+package com.fileflow.utils;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps only a fraction of the events of chosen logger categories, before the event
+ * is even built. Configured in logback-spring.xml with rules "category=rate", where
+ * the longest matching category prefix wins; events at alwaysLogLevel
+ * (WARN by default) or above are never dropped.
+ */
+public class LogSamplingTurboFilter extends TurboFilter {
+
+    private static final double NOT_SAMPLED = 1.0;
+
+    private final Map<String, Double> rules = new ConcurrentHashMap<>();
+    private final Map<String, Double> ratesByLogger = new ConcurrentHashMap<>();
+    private Level alwaysLogLevel = Level.WARN;
+
+    /**
+     * "category=rate", several may be given separated by commas
+     */
+    public void addRule(String rule) {
+        for (String entry : rule.split(",")) {
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0) {
+                if (!entry.isBlank()) addError("Expected category=rate, got " + entry);
+                continue;
+            }
+            rules.put(entry.substring(0, separator).trim(), Double.parseDouble(entry.substring(separator + 1).trim()));
+        }
+        ratesByLogger.clear();
+    }
+
+    public void setAlwaysLogLevel(String level) {
+        this.alwaysLogLevel = Level.toLevel(level, Level.WARN);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // isXxxEnabled() checks come without a format; sampling them as well would apply the rate twice
+        if (!isStarted() || format == null || level == null || level.isGreaterOrEqual(alwaysLogLevel)) {
+            return FilterReply.NEUTRAL;
+        }
+        double rate = ratesByLogger.computeIfAbsent(logger.getName(), this::resolveRate);
+        if (rate >= NOT_SAMPLED || ThreadLocalRandom.current().nextDouble() < rate) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+
+    private double resolveRate(String loggerName) {
+        String bestMatch = null;
+        for (String category : rules.keySet()) {
+            boolean matches = loggerName.equals(category) || loggerName.startsWith(category + ".");
+            if (matches && (bestMatch == null || category.length() > bestMatch.length())) {
+                bestMatch = category;
+            }
+        }
+        return bestMatch != null ? rules.get(bestMatch) : NOT_SAMPLED;
+    }
+}
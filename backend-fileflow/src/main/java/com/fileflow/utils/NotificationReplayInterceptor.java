@@ -0,0 +1,64 @@
+package com.fileflow.utils;
+
+import com.fileflow.repository.UserRepository;
+import com.fileflow.service.NotificationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Replays unacknowledged notifications when a session subscribes to /user/queue/notify.
+ *
+ * The replay runs after the user destination handler has registered the subscription
+ * with the broker, so nothing sent to the session is dropped.
+ */
+@Slf4j
+@Component
+public class NotificationReplayInterceptor implements ExecutorChannelInterceptor {
+
+    private static final String NOTIFY_DESTINATION = "/user" + NotificationService.NOTIFY_QUEUE;
+
+    @Autowired
+    @Lazy
+    private NotificationService notificationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null || !(handler instanceof UserDestinationMessageHandler)) {
+            return;
+        }
+
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null
+                || !StompCommand.SUBSCRIBE.equals(accessor.getCommand())
+                || !NOTIFY_DESTINATION.equals(accessor.getDestination())) {
+            return;
+        }
+
+        Principal principal = accessor.getUser();
+        if (principal == null) {
+            return;
+        }
+
+        try {
+            userRepository.findByEmail(principal.getName()).ifPresent(user ->
+                notificationService.replayUnacknowledged(user.getId(), user.getEmail(), accessor.getSessionId()));
+        } catch (Exception e) {
+            log.warn("Could not replay notifications to {}: {}", principal.getName(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.fileflow.utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides the sql.budget.* limits for one endpoint (method) or a whole controller (type).
+ * Negative values keep the configured default.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int statements() default -1;
+
+    long rows() default -1;
+}
@@ -0,0 +1,168 @@
+package com.fileflow.utils;
+
+import com.fileflow.exception.QueryBudgetExceededException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements and rows each HTTP request executes and checks them against
+ * a budget: sql.budget.* by default, @QueryBudget on the controller method to override.
+ *
+ * Counts are recorded per endpoint as fileflow.sql.statements / fileflow.sql.rows and
+ * returned in the X-Query-Count / X-Query-Rows headers (as of when the response was
+ * committed), so a test can assert "this endpoint issues at most N queries". A request
+ * over budget, or one repeating the same select more than repeated-select-threshold
+ * times (a lazy-loading N+1), is logged. With sql.budget.strict=true it also fails with
+ * QueryBudgetExceededException, which is meant for tests: the response has usually been
+ * sent by then.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_ROWS_HEADER = "X-Query-Rows";
+
+    private static final int MAX_LOGGED_SQL_LENGTH = 300;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sql.budget.max-statements:30}")
+    private int maxStatements;
+
+    @Value("${sql.budget.max-rows:5000}")
+    private long maxRows;
+
+    @Value("${sql.budget.repeated-select-threshold:10}")
+    private int repeatedSelectThreshold;
+
+    @Value("${sql.budget.strict:false}")
+    private boolean strict;
+
+    @Value("${sql.budget.response-headers:true}")
+    private boolean responseHeaders;
+
+    public QueryBudgetFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        RequestQueryStats stats = RequestQueryStats.start();
+        HttpServletResponse countingResponse = responseHeaders ? new QueryCountHeaderResponse(response, stats) : response;
+
+        String violation;
+        try {
+            filterChain.doFilter(request, countingResponse);
+        } finally {
+            RequestQueryStats.clear();
+            if (responseHeaders && !response.isCommitted()) {
+                writeHeaders(response, stats);
+            }
+            violation = report(request, stats);
+        }
+
+        if (strict && violation != null) {
+            throw new QueryBudgetExceededException(violation);
+        }
+    }
+
+    /**
+     * Records the metrics and logs budget violations, returning the violation if any
+     */
+    private String report(HttpServletRequest request, RequestQueryStats stats) {
+        String method = request.getMethod();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("fileflow.sql.statements")
+            .description("SQL statements executed per HTTP request")
+            .tags("method", method, "uri", uri)
+            .register(meterRegistry)
+            .record(stats.getStatements());
+        DistributionSummary.builder("fileflow.sql.rows")
+            .description("Result set rows read per HTTP request")
+            .tags("method", method, "uri", uri)
+            .register(meterRegistry)
+            .record(stats.getRows());
+
+        String endpoint = method + " " + uri;
+        String violation = null;
+
+        QueryBudget budget = resolveBudget(request);
+        int statementBudget = budget != null && budget.statements() >= 0 ? budget.statements() : maxStatements;
+        long rowBudget = budget != null && budget.rows() >= 0 ? budget.rows() : maxRows;
+        if (stats.getStatements() > statementBudget || stats.getRows() > rowBudget) {
+            violation = String.format("Query budget exceeded for %s: %d statements (budget %d), %d rows (budget %d)",
+                endpoint, stats.getStatements(), statementBudget, stats.getRows(), rowBudget);
+            log.warn(violation);
+            meterRegistry.counter("fileflow.sql.budget.exceeded", "method", method, "uri", uri).increment();
+        }
+
+        Map.Entry<String, Integer> repeated = stats.getMostRepeatedSelect().orElse(null);
+        if (repeated != null && repeated.getValue() > repeatedSelectThreshold) {
+            String sql = repeated.getKey().length() > MAX_LOGGED_SQL_LENGTH
+                ? repeated.getKey().substring(0, MAX_LOGGED_SQL_LENGTH) + "..." : repeated.getKey();
+            String nPlusOne = String.format("Possible N+1 on %s: same select run %d times: %s",
+                endpoint, repeated.getValue(), sql);
+            log.warn(nPlusOne);
+            meterRegistry.counter("fileflow.sql.repeated.select", "method", method, "uri", uri).increment();
+            if (violation == null) {
+                violation = nPlusOne;
+            }
+        }
+        return violation;
+    }
+
+    private static QueryBudget resolveBudget(HttpServletRequest request) {
+        if (!(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handlerMethod)) {
+            return null;
+        }
+        QueryBudget budget = handlerMethod.getMethodAnnotation(QueryBudget.class);
+        return budget != null ? budget : AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), QueryBudget.class);
+    }
+
+    private static void writeHeaders(HttpServletResponse response, RequestQueryStats stats) {
+        response.setHeader(QUERY_COUNT_HEADER, String.valueOf(stats.getStatements()));
+        response.setHeader(QUERY_ROWS_HEADER, String.valueOf(stats.getRows()));
+    }
+
+    /**
+     * Adds the count headers just before the response is committed, while they can still be set
+     */
+    private static class QueryCountHeaderResponse extends OnCommittedResponseWrapper {
+
+        private final RequestQueryStats stats;
+
+        QueryCountHeaderResponse(HttpServletResponse response, RequestQueryStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeaders((HttpServletResponse) getResponse(), stats);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.fileflow.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fileflow.exception.TooManyRequestsException;
+import com.fileflow.security.CustomUserDetails;
+import com.fileflow.service.ThrottlingService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Requests-per-second limit of ThrottlingService on every authenticated /api call: over
+ * the user's plan rate (or the global one) the call gets 429 with Retry-After before any
+ * work is done. Runs right after Spring Security, which has resolved the user.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 10)
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String LIMIT_HEADER = "X-RateLimit-Limit";
+
+    private final ThrottlingService throttlingService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetails userDetails)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long limit = throttlingService.requestLimit(userDetails.getUser());
+        if (limit > 0) {
+            response.setHeader(LIMIT_HEADER, String.valueOf(limit));
+        }
+        try {
+            throttlingService.acquireRequest(userDetails.getUser());
+        } catch (TooManyRequestsException e) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(e.getMessage()));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,75 @@
+package com.fileflow.utils;
+
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * SQL statements and rows read by the current HTTP request, filled in by the
+ * datasource proxy (see QueryCountConfig) while QueryBudgetFilter has a request open.
+ * Work on other threads (after-commit listeners, scheduled jobs) is not counted.
+ */
+public class RequestQueryStats {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+    private static final int MAX_TRACKED_SELECTS = 200;
+
+    private int statements;
+    private int selects;
+    private long rows;
+    private final Map<String, Integer> selectCounts = new HashMap<>();
+
+    public static RequestQueryStats start() {
+        RequestQueryStats stats = new RequestQueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * Stats of the request running on this thread, null outside a request
+     */
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public void recordStatement(String sql) {
+        statements++;
+        if (QueryUtils.getQueryType(sql) == QueryType.SELECT) {
+            selects++;
+            if (selectCounts.size() < MAX_TRACKED_SELECTS || selectCounts.containsKey(sql)) {
+                selectCounts.merge(sql, 1, Integer::sum);
+            }
+        }
+    }
+
+    public void recordRow() {
+        rows++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getSelects() {
+        return selects;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * The select run most often in this request; the same statement run once per row
+     * of an earlier result is the usual sign of a lazy-loading N+1
+     */
+    public Optional<Map.Entry<String, Integer>> getMostRepeatedSelect() {
+        return selectCounts.entrySet().stream().max(Map.Entry.comparingByValue());
+    }
+}
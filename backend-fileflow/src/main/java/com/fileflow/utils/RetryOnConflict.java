@@ -0,0 +1,19 @@
+package com.fileflow.utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the method again when its transaction loses an optimistic locking race (see
+ * ConflictRetryAspect). Only for idempotent changes to rows such as a rename or a folder
+ * move: setting the same value twice is harmless, copying twice is not, and files moved
+ * on disk before the conflict stay moved when the attempt rolls back.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    int attempts() default 3;
+}
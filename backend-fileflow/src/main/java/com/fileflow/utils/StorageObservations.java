@@ -0,0 +1,45 @@
+package com.fileflow.utils;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Physical file operations as observations: a child span with the path and the bytes
+ * moved, and a fileflow.storage timer tagged with the operation.
+ */
+public final class StorageObservations {
+
+    public static final String NAME = "fileflow.storage";
+
+    private StorageObservations() {
+    }
+
+    /**
+     * Runs the operation, which returns the number of bytes it moved
+     */
+    public static long observe(ObservationRegistry registry, String operation, Path path, IoOperation io) throws IOException {
+        Observation observation = Observation.createNotStarted(NAME, registry)
+            .contextualName("storage " + operation)
+            .lowCardinalityKeyValue("operation", operation)
+            .highCardinalityKeyValue("file.path", path.toString())
+            .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            long bytes = io.run();
+            observation.highCardinalityKeyValue("bytes", String.valueOf(bytes));
+            return bytes;
+        } catch (IOException | RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    @FunctionalInterface
+    public interface IoOperation {
+        long run() throws IOException;
+    }
+}
@@ -0,0 +1,57 @@
+package com.fileflow.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Paces the reads of a stream: after each read, the bytes are charged to
+ * delayForBytes (bytes -> nanoseconds to wait) and the reading thread sleeps that long,
+ * so whatever copies the stream (upload to disk, download to the socket) runs at the
+ * allowed rate instead of failing.
+ */
+public class ThrottledInputStream extends FilterInputStream {
+
+    // bytes charged at once, keeps the pauses short and even
+    private static final int MAX_CHUNK = 64 * 1024;
+
+    private final LongUnaryOperator delayForBytes;
+
+    public ThrottledInputStream(InputStream in, LongUnaryOperator delayForBytes) {
+        super(in);
+        this.delayForBytes = delayForBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            pause(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, Math.min(len, MAX_CHUNK));
+        if (n > 0) {
+            pause(n);
+        }
+        return n;
+    }
+
+    private void pause(long bytes) throws IOException {
+        long nanos = delayForBytes.applyAsLong(bytes);
+        if (nanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while throttled");
+            }
+        }
+    }
+}
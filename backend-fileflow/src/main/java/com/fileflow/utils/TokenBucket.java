@@ -0,0 +1,81 @@
+package com.fileflow.utils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket: refills at ratePerSecond tokens per second, holds at most
+ * ratePerSecond * burst tokens.
+ *
+ * The whole state is one AtomicLong, the nanoTime at which the bucket is full again
+ * (generic cell rate algorithm). Taking tokens moves that time forward by their cost
+ * with a compare-and-set, so callers on different threads never wait on each other.
+ */
+public final class TokenBucket {
+
+    private final long ratePerSecond;
+    private final double nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(long ratePerSecond, Duration burst) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond must be positive");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.nanosPerToken = 1_000_000_000d / ratePerSecond;
+        this.burstNanos = Math.max(burst.toNanos(), (long) Math.ceil(nanosPerToken));
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    public long getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    /**
+     * Takes the tokens even if the bucket runs into debt, and returns how many nanoseconds
+     * the caller must wait before using them (0 = now). For shaping a stream.
+     */
+    public long reserve(long tokens) {
+        long cost = cost(tokens);
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + cost;
+            if (fullAt.compareAndSet(current, next)) {
+                return Math.max(0, next - now - burstNanos);
+            }
+        }
+    }
+
+    /**
+     * Takes the tokens only if they are available now. Returns 0 when taken, otherwise
+     * the nanoseconds until they would be, and takes nothing. For rejecting requests.
+     */
+    public long tryAcquire(long tokens) {
+        long cost = cost(tokens);
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + cost;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Whether the bucket has refilled completely; a full bucket behaves like a new one
+     */
+    public boolean isFull() {
+        return fullAt.get() - System.nanoTime() <= 0;
+    }
+
+    private long cost(long tokens) {
+        return (long) Math.ceil(tokens * nanosPerToken);
+    }
+}
@@ -0,0 +1,96 @@
+package com.fileflow.utils;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Spans for controller entry, FileService/FolderService methods and repository calls,
+ * nested under the HTTP server span. Each carries the SQL statements and rows the
+ * request ran while it was open (see RequestQueryStats); repository spans also carry
+ * the number of entities returned. Disk I/O spans come from StorageObservations.
+ *
+ * Only the outermost call into a bean is traced: calls a service makes to its own
+ * methods do not go through the proxy.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "tracing.spans.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingAspect {
+
+    private final Tracer tracer;
+
+    public TracingAspect(ObjectProvider<Tracer> tracer) {
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+    }
+
+    @Around("within(@org.springframework.web.bind.annotation.RestController *) && execution(public * *(..))")
+    public Object traceController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, "controller", joinPoint.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    @Around("(within(com.fileflow.service.FileService) || within(com.fileflow.service.FolderService)) && execution(public * *(..))")
+    public Object traceService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, "service", joinPoint.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    @Around("this(org.springframework.data.repository.Repository) && execution(public * *(..))")
+    public Object traceRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(joinPoint.getThis());
+        String type = interfaces.length > 0 ? interfaces[0].getSimpleName() : joinPoint.getSignature().getDeclaringType().getSimpleName();
+        return trace(joinPoint, "repository", type);
+    }
+
+    private Object trace(ProceedingJoinPoint joinPoint, String layer, String type) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        Span span = tracer.nextSpan()
+            .name(type + "." + method)
+            .tag("fileflow.layer", layer)
+            .tag("code.namespace", type)
+            .tag("code.function", method)
+            .start();
+
+        RequestQueryStats stats = RequestQueryStats.current();
+        int statementsBefore = stats != null ? stats.getStatements() : 0;
+        long rowsBefore = stats != null ? stats.getRows() : 0;
+
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            Object result = joinPoint.proceed();
+            if ("repository".equals(layer)) {
+                Long returned = countResults(result);
+                if (returned != null) {
+                    span.tag("db.entities", returned);
+                }
+            }
+            return result;
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            if (stats != null) {
+                span.tag("db.statements", stats.getStatements() - statementsBefore);
+                span.tag("db.rows", stats.getRows() - rowsBefore);
+            }
+            span.end();
+        }
+    }
+
+    private static Long countResults(Object result) {
+        if (result instanceof Collection<?> collection) return (long) collection.size();
+        if (result instanceof Slice<?> slice) return (long) slice.getNumberOfElements();
+        if (result instanceof Map<?, ?> map) return (long) map.size();
+        if (result instanceof Optional<?> optional) return optional.isPresent() ? 1L : 0L;
+        return null;
+    }
+}
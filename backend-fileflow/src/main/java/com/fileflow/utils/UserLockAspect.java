@@ -0,0 +1,145 @@
+package com.fileflow.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-user locks for @UserLocked methods, so that one user's concurrent uploads, renames
+ * and moves do not race on storageUsed or on the name checks, while different users run
+ * in parallel.
+ *
+ * Locks are striped: user ids hash onto user-locks.stripes ReentrantLocks, two users
+ * sharing a stripe only wait on each other. The lock is taken before the method's
+ * transaction starts and released after it commits; when the caller already runs in a
+ * transaction (bulk jobs), it is released when that transaction completes.
+ *
+ * With several instances behind a load balancer set user-locks.mode=advisory: the
+ * method then also takes a PostgreSQL transaction-level advisory lock on the user, held
+ * until commit. The local stripe is still taken first, so requests queue in memory
+ * rather than each holding a pooled connection while waiting.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(0) // outside the transaction interceptor
+public class UserLockAspect {
+
+    private static final int ADVISORY_LOCK_NAMESPACE = 0x46464c; // "FFL"
+
+    private final ReentrantLock[] stripes;
+    private final boolean advisory;
+    private final Duration timeout;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public UserLockAspect(@Value("${user-locks.stripes:256}") int stripes,
+                          @Value("${user-locks.mode:local}") String mode,
+                          @Value("${user-locks.timeout:PT10S}") Duration timeout,
+                          PlatformTransactionManager transactionManager,
+                          JdbcTemplate jdbcTemplate,
+                          MeterRegistry meterRegistry) {
+        // a power of two, so the stripe is a mask of the spread hash
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.advisory = "advisory".equalsIgnoreCase(mode);
+        this.timeout = timeout;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(userLocked)")
+    public Object lock(ProceedingJoinPoint joinPoint, UserLocked userLocked) throws Throwable {
+        Long userId = userId(joinPoint, userLocked.userId());
+        if (userId == null) {
+            return joinPoint.proceed();
+        }
+
+        ReentrantLock lock = stripe(userId);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean acquired = lock.tryLock(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        sample.stop(meterRegistry.timer("fileflow.user.lock.wait", "outcome", acquired ? "acquired" : "timeout"));
+        if (!acquired) {
+            log.warn("User {} lock not acquired within {} for {}", userId, timeout, joinPoint.getSignature().toShortString());
+            throw new RuntimeException("Too many concurrent changes, please try again");
+        }
+
+        boolean releaseWithTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        if (releaseWithTransaction) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    lock.unlock();
+                }
+            });
+        }
+        try {
+            return advisory ? proceedWithAdvisoryLock(joinPoint, userId) : joinPoint.proceed();
+        } finally {
+            if (!releaseWithTransaction) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private ReentrantLock stripe(Long userId) {
+        int hash = userId.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    /**
+     * Runs the method in a transaction (joined by its own @Transactional) holding
+     * pg_advisory_xact_lock for the user until commit
+     */
+    private Object proceedWithAdvisoryLock(ProceedingJoinPoint joinPoint, Long userId) throws Throwable {
+        try {
+            return transactionTemplate.execute(status -> {
+                jdbcTemplate.query("select pg_advisory_xact_lock(?, ?)", rs -> null,
+                    ADVISORY_LOCK_NAMESPACE, (int) (userId ^ (userId >>> 32)));
+                try {
+                    return joinPoint.proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new UndeclaredThrowableException(e);
+                }
+            });
+        } catch (UndeclaredThrowableException e) {
+            throw e.getUndeclaredThrowable();
+        }
+    }
+
+    private static Long userId(ProceedingJoinPoint joinPoint, String parameter) {
+        String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(parameter)) {
+                return (Long) args[i];
+            }
+        }
+        throw new IllegalStateException("@UserLocked parameter '" + parameter + "' not found on "
+            + joinPoint.getSignature().toShortString());
+    }
+}
@@ -0,0 +1,20 @@
+package com.fileflow.utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Serializes calls for the same user (see UserLockAspect). Put it on service methods that
+ * check then change a user's metadata: storage used, name uniqueness, folder tree.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface UserLocked {
+
+    /**
+     * Name of the Long parameter holding the user id
+     */
+    String userId() default "userId";
+}
@@ -0,0 +1,75 @@
+package com.fileflow.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier (blocking inside a
+ * synchronized block or a native frame) for longer than virtual-threads.pinned-threshold.
+ * Each one is logged with the first application frame and counted in fileflow.virtual.pinned.
+ *
+ * Only runs when virtual threads are active; it listens to the JFR jdk.VirtualThreadPinned
+ * event, so it costs nothing until a thread actually pins.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+    private static final String APPLICATION_PACKAGE = "com.fileflow.";
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${virtual-threads.pinned-threshold:PT0.02S}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::report);
+        stream.startAsync();
+        log.info("Watching for virtual threads pinned longer than {}", threshold);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void report(RecordedEvent event) {
+        String site = event.getStackTrace() == null ? "?" : event.getStackTrace().getFrames().stream()
+            .filter(frame -> frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE))
+            .findFirst()
+            .map(VirtualThreadPinningMonitor::describe)
+            .orElse("outside com.fileflow");
+        meterRegistry.counter("fileflow.virtual.pinned").increment();
+        log.warn("Virtual thread {} pinned for {} ms at {}",
+            event.getThread() != null ? event.getThread().getJavaName() : "?",
+            event.getDuration().toMillis(), site);
+    }
+
+    private static String describe(RecordedFrame frame) {
+        String method = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+        return frame.getLineNumber() > 0 ? method + ":" + frame.getLineNumber() : method;
+    }
+}
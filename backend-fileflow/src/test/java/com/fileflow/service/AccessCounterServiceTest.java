@@ -0,0 +1,156 @@
+package com.fileflow.service;
+
+import com.fileflow.repository.AccessStatsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts flushed through a stubbed JDBC template: every access recorded must be written
+ * exactly once, however record and flush interleave
+ */
+class AccessCounterServiceTest {
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private AccessCounterService service;
+    // share id -> hits added to file_share.access_count
+    private final Map<Long, Long> flushedShareHits = new ConcurrentHashMap<>();
+    // file id -> hits written to access_stats
+    private final Map<Long, Long> flushedFileHits = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE file_share"), any(SqlParameterSource[].class)))
+            .thenAnswer(invocation -> collect(invocation.getArgument(1), flushedShareHits));
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO access_stats"), any(SqlParameterSource[].class)))
+            .thenAnswer(invocation -> collectFiles(invocation.getArgument(1)));
+        service = new AccessCounterService(jdbcTemplate, mock(AccessStatsRepository.class), transactionManager,
+            new SimpleMeterRegistry(), 3);
+    }
+
+    @Test
+    void flushWritesEveryRecordedAccess() {
+        for (int i = 0; i < 10; i++) {
+            service.recordShareAccess(1L, "visitor-" + i);
+        }
+        service.recordShareAccess(2L, null);
+        service.recordFileAccess(7L, "user:1");
+
+        service.flush();
+
+        assertThat(flushedShareHits).containsEntry(1L, 10L).containsEntry(2L, 1L).hasSize(2);
+        assertThat(flushedFileHits).containsEntry(7L, 1L).hasSize(1);
+
+        // nothing left for the next flush
+        flushedShareHits.clear();
+        service.flush();
+        assertThat(flushedShareHits).isEmpty();
+    }
+
+    @Test
+    void concurrentRecordAndFlushConserveTheTotal() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        long[] shares = {1L, 2L, 3L, 4L, 5L};
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean recording = new AtomicBoolean(true);
+        AtomicInteger flushes = new AtomicInteger();
+        try {
+            List<Future<?>> recorders = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                recorders.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        service.recordShareAccess(shares[i % shares.length], "visitor-" + thread + "-" + i);
+                    }
+                    return null;
+                }));
+            }
+            Future<?> flusher = pool.submit(() -> {
+                start.await();
+                while (recording.get()) {
+                    service.flush();
+                    flushes.incrementAndGet();
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> recorder : recorders) {
+                recorder.get(60, TimeUnit.SECONDS);
+            }
+            recording.set(false);
+            flusher.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        service.flush();
+
+        assertThat(flushes.get()).isPositive();
+        long perShare = (long) threads * perThread / shares.length;
+        for (long share : shares) {
+            assertThat(flushedShareHits.get(share)).as("hits of share %d", share).isEqualTo(perShare);
+        }
+    }
+
+    @Test
+    void failedBatchIsKeptForTheNextFlush() {
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE file_share"), any(SqlParameterSource[].class)))
+            .thenThrow(new DataAccessResourceFailureException("database down"))
+            .thenAnswer(invocation -> collect(invocation.getArgument(1), flushedShareHits));
+        for (int i = 0; i < 4; i++) {
+            service.recordShareAccess(1L, null);
+        }
+
+        service.flush();
+        assertThat(flushedShareHits).isEmpty();
+
+        service.recordShareAccess(1L, null);
+        service.flush();
+        assertThat(flushedShareHits).containsEntry(1L, 5L);
+    }
+
+    private static int[] collect(SqlParameterSource[] batch, Map<Long, Long> into) {
+        for (SqlParameterSource params : batch) {
+            into.merge((Long) params.getValue("id"), ((Number) params.getValue("hits")).longValue(), Long::sum);
+        }
+        return new int[batch.length];
+    }
+
+    private int[] collectFiles(SqlParameterSource[] batch) {
+        for (SqlParameterSource params : batch) {
+            if ("FILE".equals(params.getValue("type"))) {
+                flushedFileHits.merge((Long) params.getValue("id"), ((Number) params.getValue("hits")).longValue(), Long::sum);
+            }
+        }
+        return new int[batch.length];
+    }
+}
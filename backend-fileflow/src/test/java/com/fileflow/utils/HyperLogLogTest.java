@@ -0,0 +1,98 @@
+package com.fileflow.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void emptySketchEstimatesZero() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        assertThat(sketch.isEmpty()).isTrue();
+        assertThat(sketch.estimate()).isZero();
+    }
+
+    @Test
+    void smallCountsAreNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            sketch.add("visitor-" + i);
+        }
+
+        assertThat(sketch.estimate()).isCloseTo(100L, within(3L));
+    }
+
+    @Test
+    void largeCountsAreWithinTheStandardError() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add("visitor-" + i);
+        }
+
+        // about 3% standard error, allow three of them
+        assertThat(sketch.estimate()).isCloseTo(100_000L, within(10_000L));
+    }
+
+    @Test
+    void repeatedVisitorsAreCountedOnce() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 1_000; i++) {
+                sketch.add("visitor-" + i);
+            }
+        }
+
+        assertThat(sketch.estimate()).isCloseTo(1_000L, within(100L));
+    }
+
+    @Test
+    void mergeEqualsOneSketchOfBothSets() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        for (int i = 0; i < 20_000; i++) {
+            (i % 3 == 0 ? first : second).add("visitor-" + i);
+            union.add("visitor-" + i);
+        }
+        // overlapping visitors must not be counted twice
+        for (int i = 0; i < 5_000; i++) {
+            first.add("visitor-" + i);
+        }
+
+        first.merge(second);
+
+        assertThat(first.toBytes()).isEqualTo(union.toBytes());
+        assertThat(first.estimate()).isEqualTo(union.estimate());
+    }
+
+    @Test
+    void toBytesRoundTrips() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add("visitor-" + i);
+        }
+
+        byte[] bytes = sketch.toBytes();
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+
+        assertThat(bytes).hasSize(HyperLogLog.REGISTERS);
+        assertThat(restored.toBytes()).isEqualTo(bytes);
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+
+        // the restored sketch owns its registers
+        Arrays.fill(bytes, (byte) 0);
+        assertThat(restored.toBytes()).isEqualTo(sketch.toBytes());
+    }
+
+    @Test
+    void fromBytesOfNothingOrAnotherSizeIsEmpty() {
+        assertThat(HyperLogLog.fromBytes(null).isEmpty()).isTrue();
+        assertThat(HyperLogLog.fromBytes(new byte[16]).isEmpty()).isTrue();
+        assertThat(HyperLogLog.fromBytes(new byte[HyperLogLog.REGISTERS + 1]).isEmpty()).isTrue();
+    }
+}
@@ -5,7 +5,7 @@ import { useEffect, useState } from "react";
 import { fileService } from "@/services/fileService";
 import { toast } from "react-toastify";
 import { FileDTO, shareNotification } from "@/types/types";
-import { connectWebSocket, stompClient } from "@/utils/WebSocket";
+import { connectWebSocket, markNotificationAnswered, notificationKey, stompClient } from "@/utils/WebSocket";
 import { FileItem, useFileStore } from "@/store/fileStore";
 
 export function NotificationsDropdown({
@@ -14,30 +14,38 @@ export function NotificationsDropdown({
     userId: number;
 }) {
     const [newNotification, setnewNotification] = useState(true);
-    const [notesNumber, setNotesNumber] = useState(0);
     const [notifications, setNotifications] = useState<shareNotification[]>([]);
+    const notesNumber = notifications.length;
     const { files, setFiles } = useFileStore();
 
-    // Load initial notifications and count on mount
-    useEffect(() => {
-        const loadInitialNotifications = async () => {
-            try {
-                const initialNotifications = await fileService.getAllShareNotifications(userId);
-                setNotifications(initialNotifications);
-                setNotesNumber(initialNotifications.length);
-            } catch (error) {
-                console.error("Error loading initial notifications:", error);
-            }
-        };
-
-        loadInitialNotifications();
+    // Pending shares from the REST API, keeping the inbox ids the WebSocket already delivered
+    const loadNotifications = async () => {
+        try {
+            const pending = await fileService.getAllShareNotifications(userId);
+            setNotifications((prev) => pending.map((notification) => ({
+                ...notification,
+                notificationId: prev.find((n) => notificationKey(n) === notificationKey(notification))?.notificationId,
+            })));
+        } catch (error) {
+            console.error("Error loading notifications:", error);
+        }
+    };
 
-        // Setup WebSocket connection
+    // Load the pending shares on mount; new ones arrive over the WebSocket, which also
+    // replays the unacknowledged ones on connect
+    useEffect(() => {
+        loadNotifications();
         if (!stompClient.active) {
-            connectWebSocket(setNotifications, setNotesNumber);
+            connectWebSocket(setNotifications);
         }
     }, [userId]);
 
+    const onOpenChange = (open: boolean) => {
+        if (open) {
+            loadNotifications();
+        }
+    };
+
     const handleResponse = async (notification: shareNotification, response: boolean) => {
         try {
             if (notification.type === 'file') {
@@ -71,32 +79,19 @@ export function NotificationsDropdown({
                 }
             }
             
-            // Remove notification from list and decrease count
-            const updatedNotifications = notifications.filter((n) => n.id !== notification.id);
-            setNotifications(updatedNotifications);
-            setNotesNumber(Math.max(0, notesNumber - 1));
+            markNotificationAnswered(notification);
+            if (notification.notificationId) {
+                await fileService.acknowledgeNotifications([notification.notificationId]);
+            }
+
+            // Remove notification from list, which also decreases the count
+            setNotifications((prev) => prev.filter((n) => notificationKey(n) !== notificationKey(notification)));
         } catch (error) {
             console.log(error);
             toast.error("Erreur lors de la réponse à la notification");
         }
     };
 
-    const onOpenChange = async (open: boolean) => {
-        if (open) {
-            // Refresh notifications when dropdown opens but don't reset count
-            try {
-                const response = await fileService.getAllShareNotifications(userId);
-                setNotifications(response);
-                // Only update count if we have fewer notifications than the badge shows
-                if (response.length !== notesNumber) {
-                    setNotesNumber(response.length);
-                }
-            } catch (error) {
-                console.error("Error refreshing notifications:", error);
-            }
-        }
-    };
-
     return (
         <DropdownMenu.Root onOpenChange={onOpenChange}>
                             <DropdownMenu.Trigger className="relative hover:bg-gray-200 p-2 rounded-full">
@@ -124,7 +119,7 @@ export function NotificationsDropdown({
                         {notifications.length > 0 ? (
                             notifications.map((notification) => (
                                 <DropdownMenu.Item
-                                    key={notification.id}
+                                    key={notificationKey(notification)}
                                     className="outline-none"
                                 >
                                     <NotificationItem
@@ -47,6 +47,14 @@ const foldersAPI = axios.create({
   withCredentials: true,
 });
 
+const notificationsAPI = axios.create({
+  baseURL: `${API_BASE_URL}/notifications`,
+  headers: {
+    'Content-Type': 'application/json',
+  },
+  withCredentials: true,
+});
+
 // === INTERCEPTOR ===
 const addAuthInterceptor = (apiInstance: AxiosInstance): void => {
   apiInstance.interceptors.request.use((config) => {
@@ -59,7 +67,7 @@ const addAuthInterceptor = (apiInstance: AxiosInstance): void => {
 };
 
 // === Apply to all instances ===
-[fileAPI, favoritesAPI, sharingAPI, foldersAPI].forEach(addAuthInterceptor);
+[fileAPI, favoritesAPI, sharingAPI, foldersAPI, notificationsAPI].forEach(addAuthInterceptor);
 
 // === FILE SERVICE ===
 export const fileService = {
@@ -448,6 +456,12 @@ export const fileService = {
     const response = await foldersAPI.delete<ApiResponse<void>>(`/${folderId}/shares/user?userEmail=${encodeURIComponent(userEmail)}`);
     if (!response.data.success) throw new Error(response.data.message);
   },
+
+  // Acknowledged notifications are no longer replayed when the WebSocket reconnects
+  async acknowledgeNotifications(ids: number[]): Promise<void> {
+    const response = await notificationsAPI.post<ApiResponse<number>>(`/ack`, { ids });
+    if (!response.data.success) throw new Error(response.data.message);
+  },
 };
 
 // Export types for easier imports
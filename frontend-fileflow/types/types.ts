@@ -71,6 +71,7 @@ export interface FileDTO {
 
 export interface shareNotification {
   id: number;
+  notificationId?: number; // inbox id, used to acknowledge the notification
   owner: string;
   fileName?: string;
   folderName?: string;
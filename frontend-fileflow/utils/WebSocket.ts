@@ -16,27 +16,41 @@ export const stompClient = new Client({
 });
 
 
+// Share ids are only unique per type; notificationId is missing on items loaded over REST
+export const notificationKey = (notification: shareNotification): string => `${notification.type}-${notification.id}`;
 
-export const connectWebSocket = (setNewNotification: React.Dispatch<React.SetStateAction<shareNotification[]>>, setNotesNumber: React.Dispatch<React.SetStateAction<number>>): void => {
+// Answered shares, so a replay that was not acknowledged yet does not bring them back
+const answeredNotificationKeys = new Set<string>();
+
+export const markNotificationAnswered = (notification: shareNotification): void => {
+    answeredNotificationKeys.add(notificationKey(notification));
+}
+
+export const connectWebSocket = (setNewNotification: React.Dispatch<React.SetStateAction<shareNotification[]>>): void => {
 
     stompClient.onConnect = () => {
         console.log("[WEBSOCKET] Connected");
 
+        // Unacknowledged notifications are replayed by the server on every subscribe
         stompClient?.subscribe("/user/queue/notify", (message: IMessage) => {
             console.log("notification received: ", message);
-            const body = JSON.parse(message.body);
+            const parsed = JSON.parse(message.body);
+            const body: shareNotification = { ...parsed, type: parsed.folderName ? 'folder' : 'file' };
+            if (answeredNotificationKeys.has(notificationKey(body))) {
+                return;
+            }
             setNewNotification((prev: shareNotification[]) => {
-                const exists = prev.some((item: shareNotification) => item.id === body.id); // or any unique field
-                if (!exists) {
+                const existing = prev.find((item) => notificationKey(item) === notificationKey(body));
+                if (!existing) {
                     return [...prev, body];
                 }
-                return prev; // Return prev if exists
+                // already shown (loaded over REST or replayed): keep it once, with its inbox id
+                return prev.map((item) => item === existing ? { ...item, notificationId: body.notificationId } : item);
             });
-            setNotesNumber((prev: number) => prev + 1)
             console.log(body);
         });
-        stompClient?.subscribe("/topic/public", (message: IMessage) => {
-            console.log("received soemthing: ", message.body);
+        stompClient?.subscribe("/user/queue/presence", (message: IMessage) => {
+            console.log("presence changes: ", message.body);
 
 
         });
@@ -59,6 +73,16 @@ export const connectWebSocket = (setNewNotification: React.Dispatch<React.SetSta
 };
 
 
+// Follow the change feed of one folder listing (null = root); returns the unsubscribe function
+export const subscribeToFolderChanges = (folderId: number | null, onChange: (change: any) => void): (() => void) => {
+    const destination = folderId === null ? "/user/queue/folders/root" : `/topic/folders/${folderId}`;
+    const subscription = stompClient.subscribe(destination, (message: IMessage) => {
+        onChange(JSON.parse(message.body));
+    });
+    return () => subscription.unsubscribe();
+}
+
+
 export const disconnectWebSocket = (): void => {
     if (stompClient && stompClient.connected) {
         stompClient.deactivate();